@@ -41,7 +41,10 @@ const ApiService = {
 
             if (!response.ok) {
                 const error = await response.json().catch(() => ({ error: 'Request failed' }));
-                throw new Error(error.error || `HTTP ${response.status}`);
+                const err = new Error(error.error || `HTTP ${response.status}`);
+                err.status = response.status;
+                err.data = error;
+                throw err;
             }
 
             // Handle empty responses
@@ -57,10 +60,11 @@ const ApiService = {
         return this.request(endpoint, { method: 'GET' });
     },
 
-    async post(endpoint, data) {
+    async post(endpoint, data, headers = {}) {
         return this.request(endpoint, {
             method: 'POST',
-            body: JSON.stringify(data)
+            body: JSON.stringify(data),
+            headers
         });
     },
 
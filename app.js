@@ -151,24 +151,24 @@ function isMedTaken(medId, date, time) {
 }
 
 async function toggleMedTaken(medId, date, time) {
-    const logs = DB.getMedLogs();
-    const idx = logs.findIndex(l => l.medId === medId && l.date === date && l.time === time);
+    const existing = DB.getMedLogs().find(l => l.medId === medId && l.date === date && l.time === time);
 
-    if (idx >= 0) {
-        logs[idx].taken = !logs[idx].taken;
-        logs[idx].takenAt = logs[idx].taken ? new Date().toISOString() : null;
+    let log;
+    if (existing) {
+        const taken = !existing.taken;
+        log = { ...existing, taken, takenAt: taken ? new Date().toISOString() : null };
     } else {
-        logs.push({
+        log = {
             id: generateId(),
             medId,
             date,
             time,
             taken: true,
             takenAt: new Date().toISOString()
-        });
+        };
     }
 
-    await DB.saveMedLogs(logs);
+    await DB.saveDose(log);
 }
 
 async function markAllTimesToday(medId) {
@@ -255,6 +255,7 @@ function setupOfflineDetection() {
     window.addEventListener('online', () => {
         banner.classList.add('hidden');
         showToast('✅ Kapcsolat helyreállt');
+        DB.syncPendingDoses();
     });
 
     window.addEventListener('offline', () => {
@@ -1037,6 +1038,7 @@ async function renderAdmin() {
                     <div class="admin-user-name">${escapeHtml(user.name || 'Névtelen')}</div>
                     <div class="admin-user-email">${escapeHtml(user.email || 'Nincs email')}</div>
                     <div class="admin-user-uid">${escapeHtml(user.uid)}</div>
+                    <div class="admin-user-uid">💊 ${user.medicationCount || 0} · 📋 ${user.medLogCount || 0}${user.adherence != null ? ` · ✅ ${Math.round(user.adherence * 100)}%` : ''}</div>
                 </div>
                 <span class="admin-user-arrow">→</span>
             </div>
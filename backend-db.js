@@ -8,7 +8,9 @@ const DB = {
         MEDICATIONS: 'mediminder_medications',
         MED_LOGS: 'mediminder_med_logs',
         APPOINTMENTS: 'mediminder_appointments',
-        USER: 'mediminder_user'
+        USER: 'mediminder_user',
+        // Doses saved locally but not yet accepted by the server, keyed by medId|date|time
+        PENDING_DOSES: 'mediminder_pending_doses'
     },
 
     // ── Local cache helpers ──────────────────
@@ -48,15 +50,52 @@ const DB = {
         }
     },
 
-    async _saveToBackend(endpoint, items) {
+    async _saveToBackend(endpoint, items, localKey, type) {
         if (!this._userId) return;
+        // Retries reuse the key, so the server replays the first response instead of saving twice
+        const headers = { 'Idempotency-Key': this._newIdempotencyKey() };
         try {
-            await ApiService.post(endpoint, items);
+            let saved;
+            try {
+                saved = await ApiService.post(endpoint, items, headers);
+            } catch (e) {
+                if (e.status !== undefined) throw e;
+                saved = await ApiService.post(endpoint, items, headers); // network error: retry once
+            }
+            this._applyServerVersions(localKey, items, saved);
         } catch (e) {
+            if (e.status === 409) {
+                // Another device changed some of these items: take the server state
+                console.warn(`[DB] Version conflict saving ${endpoint}, reloading`, e.data && e.data.conflicts);
+                await this._loadFromBackend(endpoint, localKey);
+                this._notifyListeners(type);
+                return;
+            }
             console.error(`[DB] Error saving to ${endpoint}:`, e);
         }
     },
 
+    _newIdempotencyKey() {
+        if (typeof crypto !== 'undefined' && crypto.randomUUID) return crypto.randomUUID();
+        return Date.now().toString(36) + Math.random().toString(36).slice(2);
+    },
+
+    // The server returns saved items in request order with their new versions;
+    // copy those onto the local cache so the next save is not seen as stale.
+    _applyServerVersions(localKey, sent, saved) {
+        if (!Array.isArray(saved) || saved.length !== sent.length) return;
+        const byId = new Map();
+        sent.forEach((item, i) => {
+            if (item.id) byId.set(item.id, saved[i]);
+        });
+        const local = this._localGet(localKey) || [];
+        local.forEach(item => {
+            const match = byId.get(item.id);
+            if (match) item.version = match.version;
+        });
+        this._localSet(localKey, local);
+    },
+
     // ── Data change listeners ────────────────
     _notifyListeners(type) {
         this._listeners.forEach(fn => fn(type));
@@ -71,12 +110,23 @@ const DB = {
         this._userId = userId;
         console.log('[DB] User logged in:', userId);
 
-        // Load data from backend into localStorage cache
-        await Promise.all([
-            this._loadFromBackend('/medications', this.KEYS.MEDICATIONS),
-            this._loadFromBackend('/med-logs', this.KEYS.MED_LOGS),
-            this._loadFromBackend('/appointments', this.KEYS.APPOINTMENTS),
-        ]);
+        // Send doses checked off while offline first, or the bootstrap below would overwrite them
+        await this.syncPendingDoses();
+
+        // Load data from backend into localStorage cache, in one request when the server supports it
+        try {
+            const data = await ApiService.get('/sync/bootstrap');
+            this._localSet(this.KEYS.MEDICATIONS, data.medications || []);
+            this._localSet(this.KEYS.MED_LOGS, data.medLogs || []);
+            this._localSet(this.KEYS.APPOINTMENTS, data.appointments || []);
+        } catch (e) {
+            console.warn('[DB] Bootstrap failed, loading collections separately:', e);
+            await Promise.all([
+                this._loadFromBackend('/medications', this.KEYS.MEDICATIONS),
+                this._loadFromBackend('/med-logs', this.KEYS.MED_LOGS),
+                this._loadFromBackend('/appointments', this.KEYS.APPOINTMENTS),
+            ]);
+        }
 
         console.log('[DB] Data loaded from backend');
     },
@@ -87,6 +137,7 @@ const DB = {
         this._localSet(this.KEYS.MEDICATIONS, []);
         this._localSet(this.KEYS.MED_LOGS, []);
         this._localSet(this.KEYS.APPOINTMENTS, []);
+        this._localSet(this.KEYS.PENDING_DOSES, {});
         this._localSet(this.KEYS.USER, null);
         console.log('[DB] User logged out and local data cleared');
     },
@@ -100,7 +151,7 @@ const DB = {
     async saveMedications(meds) {
         this._localSet(this.KEYS.MEDICATIONS, meds);
         if (this._userId) {
-            await this._saveToBackend('/medications', meds);
+            await this._saveToBackend('/medications', meds, this.KEYS.MEDICATIONS, 'medications');
         }
     },
 
@@ -111,7 +162,81 @@ const DB = {
     async saveMedLogs(logs) {
         this._localSet(this.KEYS.MED_LOGS, logs);
         if (this._userId) {
-            await this._saveToBackend('/med-logs', logs);
+            await this._saveToBackend('/med-logs', logs, this.KEYS.MED_LOGS, 'medLogs');
+        }
+    },
+
+    // Records a single dose with one upsert instead of re-sending the whole log list.
+    // The dose stays queued until the server accepts it (see syncPendingDoses).
+    async saveDose(log) {
+        const logs = this.getMedLogs();
+        const idx = logs.findIndex(l => this._doseKey(l) === this._doseKey(log));
+        if (idx >= 0) logs[idx] = log; else logs.push(log);
+        this._localSet(this.KEYS.MED_LOGS, logs);
+        this._queueDose(log);
+        if (this._userId) {
+            await this._putDose(log);
+        }
+    },
+
+    // Replays queued doses in order; stops at the first one that still cannot be sent
+    async syncPendingDoses() {
+        if (!this._userId) return;
+        const pending = Object.values(this._localGet(this.KEYS.PENDING_DOSES) || {});
+        for (const log of pending) {
+            if (!(await this._putDose(log))) return;
+        }
+    },
+
+    _doseKey(log) {
+        return `${log.medId}|${log.date}|${log.time}`;
+    },
+
+    _queueDose(log) {
+        const pending = this._localGet(this.KEYS.PENDING_DOSES) || {};
+        pending[this._doseKey(log)] = log;
+        this._localSet(this.KEYS.PENDING_DOSES, pending);
+    },
+
+    // Leaves the entry if the dose was toggled again while this one was in flight
+    _dequeueDose(log) {
+        const pending = this._localGet(this.KEYS.PENDING_DOSES) || {};
+        const queued = pending[this._doseKey(log)];
+        if (queued && queued.taken === log.taken && queued.takenAt === log.takenAt) {
+            delete pending[this._doseKey(log)];
+            this._localSet(this.KEYS.PENDING_DOSES, pending);
+        }
+    },
+
+    // Returns false if the dose should stay queued (offline, server error, expired session)
+    async _putDose(log) {
+        try {
+            let saved;
+            try {
+                saved = await ApiService.put('/med-logs/dose', log);
+            } catch (e) {
+                if (e.status !== undefined) throw e;
+                saved = await ApiService.put('/med-logs/dose', log); // network error: retry once
+            }
+            // The server keeps the existing row's ID for this dose; adopt it and the new version
+            const current = this.getMedLogs();
+            const match = current.find(l => this._doseKey(l) === this._doseKey(saved));
+            if (match) {
+                match.id = saved.id;
+                match.version = saved.version;
+                this._localSet(this.KEYS.MED_LOGS, current);
+            }
+            this._dequeueDose(log);
+            return true;
+        } catch (e) {
+            if (e.status === 400 || e.status === 422) {
+                // Retrying an invalid dose can never succeed
+                console.error('[DB] Dose rejected by the server:', e);
+                this._dequeueDose(log);
+                return true;
+            }
+            console.warn('[DB] Dose not synced yet, will retry:', e);
+            return false;
         }
     },
 
@@ -122,7 +247,7 @@ const DB = {
     async saveAppointments(appts) {
         this._localSet(this.KEYS.APPOINTMENTS, appts);
         if (this._userId) {
-            await this._saveToBackend('/appointments', appts);
+            await this._saveToBackend('/appointments', appts, this.KEYS.APPOINTMENTS, 'appointments');
         }
     },
 
@@ -135,25 +260,47 @@ const DB = {
     },
 
     // ── Admin API ────────────────────────────
-    // Note: Admin functionality would require additional backend endpoints
+    // Only answers for admin accounts (app.admin.emails); other users get 403
     async admin_getAllUsers() {
-        console.warn('[DB Admin] Admin API not implemented in backend yet');
-        return [];
+        const users = [];
+        let after = null;
+        do {
+            const query = after ? `?after=${encodeURIComponent(after)}` : '';
+            const page = await ApiService.get(`/admin/users${query}`);
+            page.users.forEach(u => users.push({
+                uid: u.id,
+                name: u.fullName,
+                email: u.email,
+                createdAt: u.createdAt,
+                medicationCount: u.medicationCount,
+                medLogCount: u.medLogCount,
+                adherence: u.adherence,
+                lastActivity: u.lastActivity
+            }));
+            after = page.nextCursor;
+        } while (after);
+        return users;
+    },
+
+    async _adminGet(userId, collection) {
+        try {
+            return await ApiService.get(`/admin/users/${encodeURIComponent(userId)}/${collection}`);
+        } catch (e) {
+            console.error(`[DB Admin] Failed to load ${collection}:`, e);
+            return [];
+        }
     },
 
     async admin_getUserMedications(userId) {
-        console.warn('[DB Admin] Admin API not implemented in backend yet');
-        return [];
+        return this._adminGet(userId, 'medications');
     },
 
     async admin_getUserMedLogs(userId) {
-        console.warn('[DB Admin] Admin API not implemented in backend yet');
-        return [];
+        return this._adminGet(userId, 'med-logs');
     },
 
     async admin_getUserAppointments(userId) {
-        console.warn('[DB Admin] Admin API not implemented in backend yet');
-        return [];
+        return this._adminGet(userId, 'appointments');
     }
 };
 
@@ -0,0 +1,39 @@
+package com.mediminder.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "app.admin")
+@Getter
+@Setter
+public class AdminProperties {
+
+    /**
+     * Emails of the users allowed to call the admin API (compared case-insensitively).
+     * Empty by default, which disables the admin API: emails are not verified on
+     * registration, so any listed address must belong to an account that exists already.
+     */
+    private List<String> emails = new ArrayList<>();
+
+    /**
+     * Users per overview page when the client doesn't ask for a size
+     */
+    private int pageSize = 50;
+
+    /**
+     * Upper bound for the requested page size
+     */
+    private int maxPageSize = 500;
+
+    /**
+     * How long an overview page is served from cache; counts can be this stale
+     */
+    private Duration summaryCacheTtl = Duration.ofSeconds(30);
+}
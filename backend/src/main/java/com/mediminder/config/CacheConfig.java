@@ -17,15 +17,22 @@ public class CacheConfig {
     public static final String APPOINTMENTS_CACHE = "appointmentsCache";
     public static final String MED_LOGS_CACHE = "medLogsCache";
     public static final String USER_CACHE = "userCache";
+    public static final String ADMIN_USER_SUMMARIES_CACHE = "adminUserSummariesCache";
 
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(AdminProperties adminProperties) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager(
                 MEDICATIONS_CACHE,
                 APPOINTMENTS_CACHE,
                 MED_LOGS_CACHE,
                 USER_CACHE);
         cacheManager.setCaffeine(caffeineCacheBuilder());
+        // Aggregates over every user's data can't be evicted per write, so they just expire quickly
+        cacheManager.registerCustomCache(ADMIN_USER_SUMMARIES_CACHE, Caffeine.newBuilder()
+                .expireAfterWrite(adminProperties.getSummaryCacheTtl())
+                .maximumSize(100)
+                .recordStats()
+                .build());
         return cacheManager;
     }
 
@@ -0,0 +1,29 @@
+package com.mediminder.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.db-json")
+@Getter
+@Setter
+public class DbJsonProperties {
+
+    /**
+     * Let PostgreSQL render JSON med-log lists and stream them to the client,
+     * bypassing entity loading, the med-log cache and Jackson
+     */
+    private boolean enabled = false;
+
+    /**
+     * Rendered rows fetched per JDBC round trip
+     */
+    private int fetchSize = 1000;
+
+    /**
+     * Upper bound for one streamed response, in seconds
+     */
+    private int timeoutSeconds = 60;
+}
@@ -0,0 +1,24 @@
+package com.mediminder.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.export")
+@Getter
+@Setter
+public class ExportProperties {
+
+    /**
+     * Rows fetched per JDBC round trip while streaming an export (bounds heap use)
+     */
+    private int fetchSize = 1000;
+
+    /**
+     * Upper bound for a single export, in seconds. The read transaction (and its
+     * pooled connection) is held while a slow client drains the response.
+     */
+    private int timeoutSeconds = 600;
+}
@@ -0,0 +1,41 @@
+package com.mediminder.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.google")
+@Getter
+@Setter
+public class GoogleAuthProperties {
+
+    /**
+     * Endpoint serving Google's ID-token signing certificates (PEM, keyed by kid)
+     */
+    private String certsUrl = "https://www.googleapis.com/oauth2/v1/certs";
+
+    /**
+     * Fetch the certificates at startup and keep refreshing them in the background,
+     * instead of fetching them inline on the first Google login after expiry
+     */
+    private boolean prewarm = true;
+
+    /**
+     * How long before the Cache-Control expiry the keys are refreshed in the background
+     */
+    private Duration refreshAhead = Duration.ofMinutes(30);
+
+    /**
+     * Delay before retrying a failed background refresh
+     */
+    private Duration retryDelay = Duration.ofSeconds(30);
+
+    /**
+     * How long expired keys may still be used while refreshes keep failing
+     */
+    private Duration maxStale = Duration.ofHours(12);
+}
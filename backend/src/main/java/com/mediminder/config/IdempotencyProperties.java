@@ -0,0 +1,54 @@
+package com.mediminder.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "app.idempotency")
+@Getter
+@Setter
+public class IdempotencyProperties {
+
+    /**
+     * Honour the Idempotency-Key header on the configured POST endpoints
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long a stored response is replayed for a repeated key
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Total size of the responses kept in memory; the least recently used are evicted beyond it
+     */
+    private long maxCacheBytes = 64L * 1024 * 1024;
+
+    /**
+     * Responses larger than this are not stored (the request is simply not idempotent)
+     */
+    private int maxResponseBytes = 1024 * 1024;
+
+    /**
+     * Request bodies larger than this are not buffered for fingerprinting; the
+     * request is passed through without idempotency
+     */
+    private int maxRequestBytes = 1024 * 1024;
+
+    /**
+     * Also store responses in the idempotency_keys table, so retries that land on
+     * another instance (or after a restart) are recognised
+     */
+    private boolean jdbcEnabled = false;
+
+    /**
+     * Servlet paths (without the /api context path) whose POSTs accept Idempotency-Key
+     */
+    private List<String> paths = new ArrayList<>(List.of("/v1/medications", "/v1/med-logs", "/v1/appointments"));
+}
@@ -0,0 +1,23 @@
+package com.mediminder.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.ingest")
+@Getter
+@Setter
+public class IngestProperties {
+
+    /**
+     * Logs parsed, validated and flushed together; bounds the heap used by a streamed save
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Largest number of logs accepted in one streamed save (413 above this)
+     */
+    private int maxItems = 100_000;
+}
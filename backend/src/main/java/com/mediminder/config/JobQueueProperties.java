@@ -0,0 +1,72 @@
+package com.mediminder.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "app.jobs")
+@Getter
+@Setter
+public class JobQueueProperties {
+
+    /**
+     * Run workers on this instance; jobs can still be enqueued when disabled
+     */
+    private boolean enabled = true;
+
+    /**
+     * Delay between polls for ready jobs
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * Most jobs claimed from one queue per poll
+     */
+    private int batchSize = 10;
+
+    /**
+     * Jobs of one queue running at the same time on this instance, unless set in {@link #concurrency}
+     */
+    private int defaultConcurrency = 2;
+
+    /**
+     * Per-queue overrides of {@link #defaultConcurrency}
+     */
+    private Map<String, Integer> concurrency = new HashMap<>();
+
+    /**
+     * Attempts before a job is marked failed, unless given when enqueueing
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Delay before the first retry; doubles with each further attempt
+     */
+    private Duration backoffBase = Duration.ofSeconds(10);
+
+    /**
+     * Upper bound for the retry delay
+     */
+    private Duration backoffMax = Duration.ofHours(1);
+
+    /**
+     * A running job whose worker hasn't finished it within this time is assumed
+     * lost (instance died) and becomes claimable again
+     */
+    private Duration lockTimeout = Duration.ofMinutes(15);
+
+    /**
+     * How long done and failed jobs are kept
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    public int concurrencyFor(String queue) {
+        return concurrency.getOrDefault(queue, defaultConcurrency);
+    }
+}
@@ -0,0 +1,43 @@
+package com.mediminder.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.leader-election")
+@Getter
+@Setter
+public class LeaderElectionProperties {
+
+    /**
+     * Elect one instance for cluster-wide scheduled work; when disabled every
+     * instance considers itself the leader (single-instance deployments)
+     */
+    private boolean enabled = true;
+
+    /**
+     * Name of the advisory lock; instances using the same name compete for leadership
+     */
+    private String lockName = "mediminder-scheduler";
+
+    /**
+     * How often the leader checks its lock session and followers try to take
+     * over; bounds failover time after a leader shuts down or its connection drops
+     */
+    private Duration renewInterval = Duration.ofSeconds(2);
+
+    /**
+     * Longest a lock session check may take before the session is considered lost
+     */
+    private int validationTimeoutSeconds = 2;
+
+    /**
+     * TCP keepalive idle time for the lock session, so PostgreSQL drops the
+     * session (and frees the lock) soon after a leader disappears without closing it
+     */
+    private int keepaliveSeconds = 5;
+}
@@ -0,0 +1,62 @@
+package com.mediminder.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.outbox")
+@Getter
+@Setter
+public class OutboxProperties {
+
+    /**
+     * Relay recorded events to the sinks; events are recorded either way
+     */
+    private boolean relayEnabled = true;
+
+    /**
+     * Delay between relay runs
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * Events handed to the sinks at once
+     */
+    private int batchSize = 100;
+
+    /**
+     * Batches relayed per run before yielding to the next run
+     */
+    private int maxBatchesPerRun = 20;
+
+    /**
+     * Longest one batch may take, sinks included, in seconds
+     */
+    private int batchTimeoutSeconds = 30;
+
+    /**
+     * Failed relay attempts after which an event is dead-lettered (failed_at set)
+     * and no longer relayed
+     */
+    private int maxAttempts = 20;
+
+    /**
+     * Wait before retrying an event after its first failed attempt; doubles with
+     * every further attempt
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    /**
+     * Longest wait between two attempts for the same event
+     */
+    private Duration maxRetryBackoff = Duration.ofMinutes(5);
+
+    /**
+     * How long published events are kept
+     */
+    private Duration retention = Duration.ofDays(3);
+}
@@ -0,0 +1,49 @@
+package com.mediminder.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.password-hashing")
+@Getter
+@Setter
+public class PasswordHashingProperties {
+
+    /**
+     * BCrypt work factor (log2 rounds). Used as-is when calibration is disabled,
+     * otherwise it is the lower bound for the calibrated value.
+     */
+    private int strength = 10;
+
+    /**
+     * Benchmark BCrypt at startup and pick the highest work factor within the target latency
+     */
+    private boolean calibrate = true;
+
+    /**
+     * Target time for a single hash when calibrating, in milliseconds
+     */
+    private long targetLatencyMs = 250;
+
+    /**
+     * Upper bound for the calibrated work factor
+     */
+    private int maxStrength = 14;
+
+    /**
+     * Number of threads dedicated to hashing (CPU-bound, so defaults to the core count)
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximum number of hashing jobs waiting for a thread before new ones are rejected
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * Retry-After value (seconds) returned when the hashing queue is full
+     */
+    private int retryAfterSeconds = 5;
+}
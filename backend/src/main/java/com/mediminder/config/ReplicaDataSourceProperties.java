@@ -0,0 +1,46 @@
+package com.mediminder.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.datasource.replica")
+@Getter
+@Setter
+public class ReplicaDataSourceProperties {
+
+    /**
+     * Route read-only transactions to the replica below
+     */
+    private boolean enabled = false;
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private int maximumPoolSize = 10;
+
+    /**
+     * Replication lag above which reads fall back to the primary
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /**
+     * How long a user's reads stay on the primary after one of their writes commits
+     */
+    private Duration stickiness = Duration.ofSeconds(10);
+
+    /**
+     * Query returning the replica's lag in seconds (overridable for non-PostgreSQL stand-ins).
+     * Reports 0 when all received WAL has been replayed, so an idle primary does not look like lag.
+     */
+    private String lagQuery = "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 "
+            + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+}
@@ -0,0 +1,59 @@
+package com.mediminder.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Polls the replica's replication lag. Until the first successful check, and
+ * whenever the check fails or the lag exceeds {@code max-lag}, the replica is
+ * reported unhealthy and reads stay on the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final ReplicaDataSourceProperties properties;
+    private volatile double lagSeconds = Double.NaN;
+    private volatile boolean healthy = false;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource,
+                             ReplicaDataSourceProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.replicaJdbcTemplate.setQueryTimeout(2);
+        this.properties = properties;
+        Gauge.builder("mediminder.datasource.replica.lag.seconds", this, m -> m.lagSeconds)
+                .register(meterRegistry);
+        Gauge.builder("mediminder.datasource.replica.healthy", this, m -> m.healthy ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval:PT5S}")
+    public void check() {
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(properties.getLagQuery(), Double.class);
+            lagSeconds = lag != null ? lag : 0;
+            boolean nowHealthy = lagSeconds * 1000 <= properties.getMaxLag().toMillis();
+            if (nowHealthy != healthy) {
+                log.info("Replica {} (lag {}s)", nowHealthy ? "back in rotation" : "lagging, reads use primary",
+                        lagSeconds);
+            }
+            healthy = nowHealthy;
+        } catch (RuntimeException e) {
+            if (healthy) {
+                log.warn("Replica lag check failed, reads use primary: {}", e.getMessage());
+            }
+            lagSeconds = Double.NaN;
+            healthy = false;
+        }
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+}
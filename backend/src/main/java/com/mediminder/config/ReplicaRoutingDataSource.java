@@ -0,0 +1,63 @@
+package com.mediminder.config;
+
+import com.mediminder.security.UserPrincipal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Target for read-only connections: the replica, unless it is lagging or the
+ * current user wrote recently, in which case the primary. Read-write
+ * connections never get here (see {@link ReplicaDataSourceConfig}).
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReplicaStickiness stickiness;
+    private final Counter primaryCounter;
+    private final Counter replicaCounter;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    DataSource replica,
+                                    ReplicaLagMonitor lagMonitor,
+                                    ReplicaStickiness stickiness,
+                                    MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.stickiness = stickiness;
+        this.primaryCounter = Counter.builder("mediminder.datasource.reads")
+                .tag("target", PRIMARY)
+                .register(meterRegistry);
+        this.replicaCounter = Counter.builder("mediminder.datasource.reads")
+                .tag("target", REPLICA)
+                .register(meterRegistry);
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (lagMonitor.isHealthy() && !stickiness.isSticky(currentUserId())) {
+            replicaCounter.increment();
+            return REPLICA;
+        }
+        primaryCounter.increment();
+        return PRIMARY;
+    }
+
+    private static String currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getUserId();
+        }
+        return null;
+    }
+}
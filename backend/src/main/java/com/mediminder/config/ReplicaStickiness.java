@@ -0,0 +1,37 @@
+package com.mediminder.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mediminder.service.CollectionChangedEvent;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+
+/**
+ * Read-your-writes for replica routing: after a user's write commits, their
+ * reads go to the primary until the stickiness window has passed.
+ */
+public class ReplicaStickiness {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReplicaStickiness(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @EventListener
+    public void onCollectionChanged(CollectionChangedEvent event) {
+        markWrite(event.userId());
+    }
+
+    public void markWrite(String userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    public boolean isSticky(String userId) {
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.mediminder.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.write-lock")
+@Getter
+@Setter
+public class WriteLockProperties {
+
+    /**
+     * Also take a transaction-scoped PostgreSQL advisory lock, serializing
+     * writes for a user across application instances
+     */
+    private boolean advisory = true;
+
+    /**
+     * Longest a write waits for the in-JVM and advisory locks together before
+     * failing with 503
+     */
+    private long timeoutMs = 10000;
+
+    /**
+     * Retry-After value (seconds) returned when the lock wait times out
+     */
+    private int retryAfterSeconds = 1;
+}
@@ -0,0 +1,64 @@
+package com.mediminder.controller;
+
+import com.mediminder.dto.AdminUserPageDTO;
+import com.mediminder.dto.AppointmentDTO;
+import com.mediminder.dto.MedLogDTO;
+import com.mediminder.dto.MedicationDTO;
+import com.mediminder.security.UserPrincipal;
+import com.mediminder.service.AdminService;
+import com.mediminder.service.AppointmentService;
+import com.mediminder.service.MedLogService;
+import com.mediminder.service.MedicationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/v1/admin/users")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final AdminService adminService;
+    private final MedicationService medicationService;
+    private final MedLogService medLogService;
+    private final AppointmentService appointmentService;
+
+    @GetMapping
+    public ResponseEntity<AdminUserPageDTO> getUsers(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size) {
+        adminService.requireAdmin(principal);
+        return ResponseEntity.ok(adminService.getUsers(after, size));
+    }
+
+    @GetMapping("/{userId}/medications")
+    public ResponseEntity<List<MedicationDTO>> getMedications(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @PathVariable String userId) {
+        adminService.requireAdmin(principal);
+        adminService.requireUser(userId);
+        return ResponseEntity.ok(medicationService.getMedications(userId));
+    }
+
+    @GetMapping("/{userId}/med-logs")
+    public ResponseEntity<List<MedLogDTO>> getMedLogs(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @PathVariable String userId) {
+        adminService.requireAdmin(principal);
+        adminService.requireUser(userId);
+        return ResponseEntity.ok(medLogService.getMedLogs(userId));
+    }
+
+    @GetMapping("/{userId}/appointments")
+    public ResponseEntity<List<AppointmentDTO>> getAppointments(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @PathVariable String userId) {
+        adminService.requireAdmin(principal);
+        adminService.requireUser(userId);
+        return ResponseEntity.ok(appointmentService.getAppointments(userId));
+    }
+}
@@ -1,7 +1,9 @@
 package com.mediminder.controller;
 
+import com.mediminder.config.CacheConfig;
 import com.mediminder.dto.AppointmentDTO;
 import com.mediminder.security.UserPrincipal;
+import com.mediminder.service.CollectionVersionService;
 import com.mediminder.service.AppointmentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -13,6 +15,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -25,22 +28,28 @@ import java.util.Map;
 public class AppointmentController {
 
     private final AppointmentService appointmentService;
+    private final CollectionVersionService collectionVersionService;
 
     @GetMapping
-    public ResponseEntity<List<AppointmentDTO>> getAppointments(@AuthenticationPrincipal UserPrincipal principal) {
-        List<AppointmentDTO> appointments = appointmentService.getAppointments(principal.getUserId());
-        return ResponseEntity.ok(appointments);
+    public ResponseEntity<List<AppointmentDTO>> getAppointments(
+            @AuthenticationPrincipal UserPrincipal principal,
+            WebRequest request) {
+        String userId = principal.getUserId();
+        String etag = collectionVersionService.etag(userId, CacheConfig.APPOINTMENTS_CACHE);
+        return ConditionalGet.respond(request, etag, () -> appointmentService.getAppointments(userId));
     }
 
     @GetMapping("/paged")
     public ResponseEntity<Page<AppointmentDTO>> getAppointmentsPaged(
             @AuthenticationPrincipal UserPrincipal principal,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        size = Math.min(size, 100); // Limit max page size
-        Page<AppointmentDTO> appointments = appointmentService.getAppointments(
-                principal.getUserId(), PageRequest.of(page, size, Sort.by("date").ascending()));
-        return ResponseEntity.ok(appointments);
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+        int pageSize = Math.min(size, 100); // Limit max page size
+        String userId = principal.getUserId();
+        String etag = collectionVersionService.etag(userId, CacheConfig.APPOINTMENTS_CACHE);
+        return ConditionalGet.respond(request, etag, () -> appointmentService.getAppointments(
+                userId, PageRequest.of(page, pageSize, Sort.by("date").ascending())));
     }
 
     @PostMapping
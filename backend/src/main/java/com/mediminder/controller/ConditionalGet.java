@@ -0,0 +1,65 @@
+package com.mediminder.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * ETag handling for the per-user list endpoints. The ETag comes from
+ * {@link com.mediminder.service.CollectionVersionService}, so a matching
+ * If-None-Match is answered before the body supplier (cache/database) runs.
+ *
+ * ETags are weak: Tomcat never compresses a response carrying a strong ETag,
+ * and the gzipped and plain bodies are the same representation semantically.
+ */
+final class ConditionalGet {
+
+    /**
+     * Browsers may store the response but must revalidate it on every use.
+     * Setting this explicitly also stops Spring Security adding no-store.
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<T> respond(WebRequest request, String etag, Supplier<T> body) {
+        return respond(request, etag, null, body);
+    }
+
+    /**
+     * @param contentType Set explicitly for bodies no message converter handles
+     *                    (e.g. StreamingResponseBody); null to negotiate as usual
+     */
+    static <T> ResponseEntity<T> respond(WebRequest request, String etag, MediaType contentType, Supplier<T> body) {
+        // JSON, columnar JSON and CBOR are different representations and need distinct ETags
+        String representationTag = "W/" + forAccept(etag, request.getHeader(HttpHeaders.ACCEPT));
+        if (request.checkNotModified(representationTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(representationTag)
+                    .cacheControl(REVALIDATE)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .eTag(representationTag)
+                .cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.ACCEPT);
+        if (contentType != null) {
+            ok.contentType(contentType);
+        }
+        return ok.body(body.get());
+    }
+
+    private static String forAccept(String etag, String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + Integer.toHexString(accept.hashCode()) + "\"";
+    }
+}
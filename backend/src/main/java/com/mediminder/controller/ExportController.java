@@ -0,0 +1,45 @@
+package com.mediminder.controller;
+
+import com.mediminder.security.UserPrincipal;
+import com.mediminder.service.AuthService;
+import com.mediminder.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/v1/export")
+@RequiredArgsConstructor
+@Slf4j
+public class ExportController {
+
+    private final ExportService exportService;
+    private final AuthService authService;
+
+    @GetMapping(produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> export(@AuthenticationPrincipal UserPrincipal principal) {
+        String userId = principal.getUserId();
+        // Resolve the user before committing to a 200 response
+        authService.getUserById(userId);
+        log.info("Starting data export for user {}", userId);
+
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename("mediminder-export-" + LocalDate.now() + ".zip")
+                .build();
+        StreamingResponseBody body = out -> exportService.writeExport(userId, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+}
@@ -0,0 +1,59 @@
+package com.mediminder.controller;
+
+import com.mediminder.dto.ImportResultDTO;
+import com.mediminder.exception.ResourceNotFoundException;
+import com.mediminder.security.UserPrincipal;
+import com.mediminder.service.BulkImportService;
+import com.mediminder.service.ImportCollection;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Bulk history import. The request body is streamed straight into PostgreSQL
+ * COPY, so it is read from the raw input stream rather than bound with
+ * {@code @RequestBody}.
+ */
+@RestController
+@RequestMapping("/v1/import")
+@RequiredArgsConstructor
+@Slf4j
+public class ImportController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
+    private final BulkImportService bulkImportService;
+
+    @PostMapping(value = "/{collection}", consumes = CSV)
+    public ResponseEntity<ImportResultDTO> importCsv(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @PathVariable String collection,
+            HttpServletRequest request) throws IOException {
+        return doImport(principal, collection, BulkImportService.Format.CSV, request);
+    }
+
+    @PostMapping(value = "/{collection}", consumes = NDJSON)
+    public ResponseEntity<ImportResultDTO> importNdjson(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @PathVariable String collection,
+            HttpServletRequest request) throws IOException {
+        return doImport(principal, collection, BulkImportService.Format.NDJSON, request);
+    }
+
+    private ResponseEntity<ImportResultDTO> doImport(UserPrincipal principal, String collection,
+                                                     BulkImportService.Format format,
+                                                     HttpServletRequest request) throws IOException {
+        ImportCollection target = ImportCollection.fromPath(collection)
+                .orElseThrow(() -> new ResourceNotFoundException("Unknown import collection: " + collection));
+        log.info("Bulk importing {} ({}) for user {}", target.getPath(), format, principal.getUserId());
+        ImportResultDTO result = bulkImportService.importCollection(
+                principal.getUserId(), target, format, request.getInputStream());
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,8 +1,16 @@
 package com.mediminder.controller;
 
+import com.mediminder.config.CacheConfig;
+import com.mediminder.config.DbJsonProperties;
+import com.mediminder.dto.ImportResultDTO;
+import com.mediminder.dto.MedLogColumnsDTO;
 import com.mediminder.dto.MedLogDTO;
 import com.mediminder.security.UserPrincipal;
+import com.mediminder.service.CollectionVersionService;
+import com.mediminder.service.MedLogIngestService;
+import com.mediminder.service.MedLogJsonService;
 import com.mediminder.service.MedLogService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -10,10 +18,14 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.validation.annotation.Validated;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -25,22 +37,58 @@ import java.util.Map;
 public class MedLogController {
 
     private final MedLogService medLogService;
+    private final CollectionVersionService collectionVersionService;
+    private final MedLogJsonService medLogJsonService;
+    private final MedLogIngestService medLogIngestService;
+    private final DbJsonProperties dbJsonProperties;
 
     @GetMapping
-    public ResponseEntity<List<MedLogDTO>> getMedLogs(@AuthenticationPrincipal UserPrincipal principal) {
-        List<MedLogDTO> logs = medLogService.getMedLogs(principal.getUserId());
-        return ResponseEntity.ok(logs);
+    public ResponseEntity<List<MedLogDTO>> getMedLogs(
+            @AuthenticationPrincipal UserPrincipal principal,
+            WebRequest request) {
+        String userId = principal.getUserId();
+        String etag = collectionVersionService.etag(userId, CacheConfig.MED_LOGS_CACHE);
+        return ConditionalGet.respond(request, etag, () -> medLogService.getMedLogs(userId));
+    }
+
+    /**
+     * Plain JSON requests take the database-rendered path when app.db-json is
+     * enabled; other representations (CBOR, columnar) always use the cached DTOs.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getMedLogsJson(
+            @AuthenticationPrincipal UserPrincipal principal,
+            WebRequest request) {
+        if (!dbJsonProperties.isEnabled()) {
+            return getMedLogs(principal, request);
+        }
+        String userId = principal.getUserId();
+        String etag = collectionVersionService.etag(userId, CacheConfig.MED_LOGS_CACHE);
+        return ConditionalGet.respond(request, etag, MediaType.APPLICATION_JSON,
+                () -> (StreamingResponseBody) out -> medLogJsonService.writeMedLogs(userId, out));
+    }
+
+    @GetMapping(produces = MedLogColumnsDTO.MEDIA_TYPE)
+    public ResponseEntity<MedLogColumnsDTO> getMedLogsColumnar(
+            @AuthenticationPrincipal UserPrincipal principal,
+            WebRequest request) {
+        String userId = principal.getUserId();
+        String etag = collectionVersionService.etag(userId, CacheConfig.MED_LOGS_CACHE);
+        return ConditionalGet.respond(request, etag,
+                () -> MedLogColumnsDTO.from(medLogService.getMedLogs(userId)));
     }
 
     @GetMapping("/paged")
     public ResponseEntity<Page<MedLogDTO>> getMedLogsPaged(
             @AuthenticationPrincipal UserPrincipal principal,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size) {
-        size = Math.min(size, 200); // Limit max page size
-        Page<MedLogDTO> logs = medLogService.getMedLogs(
-                principal.getUserId(), PageRequest.of(page, size, Sort.by("date").descending()));
-        return ResponseEntity.ok(logs);
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request) {
+        int pageSize = Math.min(size, 200); // Limit max page size
+        String userId = principal.getUserId();
+        String etag = collectionVersionService.etag(userId, CacheConfig.MED_LOGS_CACHE);
+        return ConditionalGet.respond(request, etag, () -> medLogService.getMedLogs(
+                userId, PageRequest.of(page, pageSize, Sort.by("date").descending())));
     }
 
     @PostMapping
@@ -52,6 +100,25 @@ public class MedLogController {
         return ResponseEntity.ok(saved);
     }
 
+    /**
+     * Same replace-all semantics as the regular POST, but the body is parsed and
+     * written in chunks instead of being bound as one list. Returns counts only.
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportResultDTO> saveMedLogsStreaming(
+            @AuthenticationPrincipal UserPrincipal principal,
+            HttpServletRequest request) throws IOException {
+        log.info("Streaming med log save for user {}", principal.getUserId());
+        return ResponseEntity.ok(medLogIngestService.saveMedLogs(principal.getUserId(), request.getInputStream()));
+    }
+
+    @PutMapping("/dose")
+    public ResponseEntity<MedLogDTO> saveDose(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @Valid @RequestBody MedLogDTO dose) {
+        return ResponseEntity.ok(medLogService.saveDose(principal.getUserId(), dose));
+    }
+
     @DeleteMapping
     public ResponseEntity<?> deleteAllMedLogs(@AuthenticationPrincipal UserPrincipal principal) {
         log.info("Deleting all med logs for user {}", principal.getUserId());
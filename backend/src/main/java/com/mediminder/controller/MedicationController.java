@@ -1,7 +1,9 @@
 package com.mediminder.controller;
 
+import com.mediminder.config.CacheConfig;
 import com.mediminder.dto.MedicationDTO;
 import com.mediminder.security.UserPrincipal;
+import com.mediminder.service.CollectionVersionService;
 import com.mediminder.service.MedicationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -13,6 +15,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -25,22 +28,28 @@ import java.util.Map;
 public class MedicationController {
 
     private final MedicationService medicationService;
+    private final CollectionVersionService collectionVersionService;
 
     @GetMapping
-    public ResponseEntity<List<MedicationDTO>> getMedications(@AuthenticationPrincipal UserPrincipal principal) {
-        List<MedicationDTO> medications = medicationService.getMedications(principal.getUserId());
-        return ResponseEntity.ok(medications);
+    public ResponseEntity<List<MedicationDTO>> getMedications(
+            @AuthenticationPrincipal UserPrincipal principal,
+            WebRequest request) {
+        String userId = principal.getUserId();
+        String etag = collectionVersionService.etag(userId, CacheConfig.MEDICATIONS_CACHE);
+        return ConditionalGet.respond(request, etag, () -> medicationService.getMedications(userId));
     }
 
     @GetMapping("/paged")
     public ResponseEntity<Page<MedicationDTO>> getMedicationsPaged(
             @AuthenticationPrincipal UserPrincipal principal,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        size = Math.min(size, 100); // Limit max page size
-        Page<MedicationDTO> medications = medicationService.getMedications(
-                principal.getUserId(), PageRequest.of(page, size, Sort.by("name").ascending()));
-        return ResponseEntity.ok(medications);
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+        int pageSize = Math.min(size, 100); // Limit max page size
+        String userId = principal.getUserId();
+        String etag = collectionVersionService.etag(userId, CacheConfig.MEDICATIONS_CACHE);
+        return ConditionalGet.respond(request, etag, () -> medicationService.getMedications(
+                userId, PageRequest.of(page, pageSize, Sort.by("name").ascending())));
     }
 
     @PostMapping
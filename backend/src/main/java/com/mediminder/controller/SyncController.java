@@ -0,0 +1,33 @@
+package com.mediminder.controller;
+
+import com.mediminder.config.CacheConfig;
+import com.mediminder.dto.BootstrapDTO;
+import com.mediminder.security.UserPrincipal;
+import com.mediminder.service.CollectionVersionService;
+import com.mediminder.service.SyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+@RestController
+@RequestMapping("/v1/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncService syncService;
+    private final CollectionVersionService collectionVersionService;
+
+    @GetMapping("/bootstrap")
+    public ResponseEntity<BootstrapDTO> bootstrap(
+            @AuthenticationPrincipal UserPrincipal principal,
+            WebRequest request) {
+        String userId = principal.getUserId();
+        String etag = collectionVersionService.etag(userId,
+                CacheConfig.MEDICATIONS_CACHE, CacheConfig.MED_LOGS_CACHE, CacheConfig.APPOINTMENTS_CACHE);
+        return ConditionalGet.respond(request, etag, () -> syncService.bootstrap(userId));
+    }
+}
@@ -0,0 +1,19 @@
+package com.mediminder.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdminUserPageDTO {
+
+    private List<AdminUserSummaryDTO> users;
+
+    /**
+     * Pass as {@code after} to fetch the next page; null on the last page
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,31 @@
+package com.mediminder.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdminUserSummaryDTO {
+
+    private String id;
+
+    private String email;
+
+    private String fullName;
+
+    private String createdAt;
+
+    private long medicationCount;
+
+    private long medLogCount;
+
+    private long takenCount;
+
+    /**
+     * Share of the user's med logs marked as taken (0-1); null without any logs
+     */
+    private Double adherence;
+
+    private String lastActivity;
+}
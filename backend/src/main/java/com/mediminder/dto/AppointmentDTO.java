@@ -27,4 +27,6 @@ public class AppointmentDTO {
     private String notes;
     
     private String status;
+    
+    private Long version;
 }
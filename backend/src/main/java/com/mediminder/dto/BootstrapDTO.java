@@ -0,0 +1,18 @@
+package com.mediminder.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BootstrapDTO {
+
+    private List<MedicationDTO> medications;
+
+    private List<MedLogDTO> medLogs;
+
+    private List<AppointmentDTO> appointments;
+}
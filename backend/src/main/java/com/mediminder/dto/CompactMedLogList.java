@@ -0,0 +1,264 @@
+package com.mediminder.dto;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Read-only med-log list stored column-wise in primitive arrays, used as the
+ * med-log cache value. IDs share one byte array, medIds are dictionary-encoded,
+ * dates are epoch days, times minutes of day and takenAt epoch microseconds.
+ * {@link #get(int)} builds a fresh {@link MedLogDTO} on each call.
+ */
+public final class CompactMedLogList extends AbstractList<MedLogDTO> implements RandomAccess {
+
+    private static final long NULL = Long.MIN_VALUE;
+
+    private final int size;
+    private final byte[] idBytes;
+    private final int[] idOffsets;
+    private final String[] medIdDictionary;
+    private final int[] medIds;
+    private final int[] dates;
+    private final short[] times;
+    private final BitSet taken;
+    private final BitSet takenNull;
+    private final long[] takenAtMicros;
+    private final long[] versions;
+
+    private CompactMedLogList(int size, byte[] idBytes, int[] idOffsets, String[] medIdDictionary, int[] medIds,
+                              int[] dates, short[] times, BitSet taken, BitSet takenNull, long[] takenAtMicros,
+                              long[] versions) {
+        this.size = size;
+        this.idBytes = idBytes;
+        this.idOffsets = idOffsets;
+        this.medIdDictionary = medIdDictionary;
+        this.medIds = medIds;
+        this.dates = dates;
+        this.times = times;
+        this.taken = taken;
+        this.takenNull = takenNull;
+        this.takenAtMicros = takenAtMicros;
+        this.versions = versions;
+    }
+
+    /**
+     * Encodes the logs, or returns them unchanged if any log does not round-trip
+     * exactly (a null field, or a date, time or takenAt not in the canonical
+     * YYYY-MM-DD / HH:MM / ISO form the database produces).
+     */
+    public static List<MedLogDTO> of(List<MedLogDTO> logs) {
+        int size = logs.size();
+        ByteArrayOutputStream idBytes = new ByteArrayOutputStream(size * 16);
+        int[] idOffsets = new int[size + 1];
+        Map<String, Integer> dictionary = new HashMap<>();
+        int[] medIds = new int[size];
+        int[] dates = new int[size];
+        short[] times = new short[size];
+        BitSet taken = new BitSet(size);
+        BitSet takenNull = new BitSet(size);
+        long[] takenAtMicros = new long[size];
+        long[] versions = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            MedLogDTO log = logs.get(i);
+            if (log.getId() == null || log.getMedId() == null) {
+                return logs;
+            }
+            byte[] id = log.getId().getBytes(StandardCharsets.UTF_8);
+            idBytes.write(id, 0, id.length);
+            idOffsets[i + 1] = idOffsets[i] + id.length;
+            medIds[i] = dictionary.computeIfAbsent(log.getMedId(), k -> dictionary.size());
+
+            Integer date = encodeDate(log.getDate());
+            Short time = encodeTime(log.getTime());
+            Long takenAt = encodeTakenAt(log.getTakenAt());
+            if (date == null || time == null || takenAt == null) {
+                return logs;
+            }
+            dates[i] = date;
+            times[i] = time;
+            takenAtMicros[i] = takenAt;
+
+            if (log.getTaken() == null) {
+                takenNull.set(i);
+            } else if (log.getTaken()) {
+                taken.set(i);
+            }
+            versions[i] = log.getVersion() != null ? log.getVersion() : NULL;
+        }
+
+        String[] medIdDictionary = new String[dictionary.size()];
+        dictionary.forEach((medId, index) -> medIdDictionary[index] = medId);
+        return new CompactMedLogList(size, idBytes.toByteArray(), idOffsets, medIdDictionary, medIds, dates,
+                times, taken, takenNull, takenAtMicros, versions);
+    }
+
+    /**
+     * Returns a copy in which the log for the same dose (medId, date and time)
+     * is replaced by {@code log}, or {@code log} is appended if there is none.
+     * Only the arrays are copied; no other log is decoded.
+     *
+     * @return null if the log cannot be stored exactly (see {@link #of(List)})
+     */
+    public CompactMedLogList withLog(MedLogDTO log) {
+        Integer date = encodeDate(log.getDate());
+        Short time = encodeTime(log.getTime());
+        Long takenAt = encodeTakenAt(log.getTakenAt());
+        if (log.getId() == null || log.getMedId() == null || date == null || time == null || takenAt == null) {
+            return null;
+        }
+
+        int medId = -1;
+        for (int m = 0; m < medIdDictionary.length; m++) {
+            if (medIdDictionary[m].equals(log.getMedId())) {
+                medId = m;
+                break;
+            }
+        }
+        int index = size;
+        if (medId >= 0) {
+            for (int i = 0; i < size; i++) {
+                if (medIds[i] == medId && dates[i] == date && times[i] == time) {
+                    index = i;
+                    break;
+                }
+            }
+        }
+        int newSize = index == size ? size + 1 : size;
+
+        String[] newDictionary = medIdDictionary;
+        if (medId < 0) {
+            medId = medIdDictionary.length;
+            newDictionary = Arrays.copyOf(medIdDictionary, medIdDictionary.length + 1);
+            newDictionary[medId] = log.getMedId();
+        }
+
+        // Splice the ID into the shared byte array, shifting the offsets after it
+        byte[] id = log.getId().getBytes(StandardCharsets.UTF_8);
+        int start = idOffsets[index];
+        int end = index < size ? idOffsets[index + 1] : start;
+        int shift = id.length - (end - start);
+        byte[] newIdBytes = new byte[idBytes.length + shift];
+        System.arraycopy(idBytes, 0, newIdBytes, 0, start);
+        System.arraycopy(id, 0, newIdBytes, start, id.length);
+        System.arraycopy(idBytes, end, newIdBytes, start + id.length, idBytes.length - end);
+        int[] newIdOffsets = Arrays.copyOf(idOffsets, newSize + 1);
+        for (int i = index + 1; i <= newSize; i++) {
+            newIdOffsets[i] = (i <= size ? idOffsets[i] : idOffsets[size]) + shift;
+        }
+
+        int[] newMedIds = Arrays.copyOf(medIds, newSize);
+        int[] newDates = Arrays.copyOf(dates, newSize);
+        short[] newTimes = Arrays.copyOf(times, newSize);
+        BitSet newTaken = (BitSet) taken.clone();
+        BitSet newTakenNull = (BitSet) takenNull.clone();
+        long[] newTakenAtMicros = Arrays.copyOf(takenAtMicros, newSize);
+        long[] newVersions = Arrays.copyOf(versions, newSize);
+
+        newMedIds[index] = medId;
+        newDates[index] = date;
+        newTimes[index] = time;
+        newTaken.set(index, Boolean.TRUE.equals(log.getTaken()));
+        newTakenNull.set(index, log.getTaken() == null);
+        newTakenAtMicros[index] = takenAt;
+        newVersions[index] = log.getVersion() != null ? log.getVersion() : NULL;
+        return new CompactMedLogList(newSize, newIdBytes, newIdOffsets, newDictionary, newMedIds, newDates,
+                newTimes, newTaken, newTakenNull, newTakenAtMicros, newVersions);
+    }
+
+    @Override
+    public MedLogDTO get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return MedLogDTO.builder()
+                .id(new String(idBytes, idOffsets[index], idOffsets[index + 1] - idOffsets[index],
+                        StandardCharsets.UTF_8))
+                .medId(medIdDictionary[medIds[index]])
+                .date(LocalDate.ofEpochDay(dates[index]).toString())
+                .time(decodeTime(times[index]))
+                .taken(takenNull.get(index) ? null : taken.get(index))
+                .takenAt(decodeTakenAt(takenAtMicros[index]))
+                .version(versions[index] != NULL ? versions[index] : null)
+                .build();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private static Integer encodeDate(String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            LocalDate parsed = LocalDate.parse(date);
+            return parsed.toString().equals(date) ? (int) parsed.toEpochDay() : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Short encodeTime(String time) {
+        if (time == null || time.length() != 5 || time.charAt(2) != ':') {
+            return null;
+        }
+        try {
+            LocalTime parsed = LocalTime.parse(time);
+            return (short) (parsed.getHour() * 60 + parsed.getMinute());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String decodeTime(short minuteOfDay) {
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        return new String(new char[]{
+                (char) ('0' + hour / 10), (char) ('0' + hour % 10), ':',
+                (char) ('0' + minute / 10), (char) ('0' + minute % 10)});
+    }
+
+    /**
+     * @return NULL for a null takenAt, or null if it cannot be stored exactly
+     */
+    private static Long encodeTakenAt(String takenAt) {
+        if (takenAt == null) {
+            return NULL;
+        }
+        try {
+            LocalDateTime parsed = LocalDateTime.parse(takenAt, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            if (parsed.getNano() % 1000 != 0
+                    || !parsed.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME).equals(takenAt)) {
+                return null;
+            }
+            return Math.addExact(Math.multiplyExact(parsed.toEpochSecond(ZoneOffset.UTC), 1_000_000L),
+                    parsed.getNano() / 1000);
+        } catch (DateTimeParseException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static String decodeTakenAt(long micros) {
+        if (micros == NULL) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                        (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC)
+                .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+}
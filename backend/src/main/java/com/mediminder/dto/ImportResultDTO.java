@@ -0,0 +1,22 @@
+package com.mediminder.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportResultDTO {
+    
+    private String collection;
+    
+    private long rowsReceived;
+    
+    private long rowsImported;
+    
+    private long rowsSkipped;
+    
+    private long durationMs;
+    
+    private long rowsPerSecond;
+}
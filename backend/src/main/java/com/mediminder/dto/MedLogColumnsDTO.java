@@ -0,0 +1,70 @@
+package com.mediminder.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Column-oriented med-log list, served for
+ * {@code Accept: application/vnd.mediminder.columnar+json}. Field names are
+ * written once instead of once per log, and the repetitive medId/time columns
+ * compress far better when adjacent.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MedLogColumnsDTO {
+
+    public static final String MEDIA_TYPE = "application/vnd.mediminder.columnar+json";
+
+    private int count;
+
+    private List<String> ids;
+
+    private List<String> medIds;
+
+    private List<String> dates;
+
+    private List<String> times;
+
+    private List<Boolean> taken;
+
+    private List<String> takenAt;
+
+    private List<Long> versions;
+
+    public static MedLogColumnsDTO from(List<MedLogDTO> logs) {
+        int size = logs.size();
+        MedLogColumnsDTO columns = new MedLogColumnsDTO(size, new ArrayList<>(size), new ArrayList<>(size),
+                new ArrayList<>(size), new ArrayList<>(size), new ArrayList<>(size), new ArrayList<>(size),
+                new ArrayList<>(size));
+        for (MedLogDTO log : logs) {
+            columns.ids.add(log.getId());
+            columns.medIds.add(log.getMedId());
+            columns.dates.add(log.getDate());
+            columns.times.add(log.getTime());
+            columns.taken.add(log.getTaken());
+            columns.takenAt.add(log.getTakenAt());
+            columns.versions.add(log.getVersion());
+        }
+        return columns;
+    }
+
+    public List<MedLogDTO> toList() {
+        List<MedLogDTO> logs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            logs.add(MedLogDTO.builder()
+                    .id(ids.get(i))
+                    .medId(medIds.get(i))
+                    .date(dates.get(i))
+                    .time(times.get(i))
+                    .taken(taken.get(i))
+                    .takenAt(takenAt.get(i))
+                    .version(versions.get(i))
+                    .build());
+        }
+        return logs;
+    }
+}
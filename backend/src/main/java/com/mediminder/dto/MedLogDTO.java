@@ -23,4 +23,6 @@ public class MedLogDTO {
     private Boolean taken;
     
     private String takenAt;
+    
+    private Long version;
 }
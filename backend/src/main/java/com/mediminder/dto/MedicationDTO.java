@@ -24,4 +24,6 @@ public class MedicationDTO {
     private List<String> times;
     
     private String notes;
+    
+    private Long version;
 }
@@ -0,0 +1,23 @@
+package com.mediminder.dto;
+
+import lombok.*;
+
+/**
+ * One item of a list save that was rejected because the client's version is
+ * out of date. {@code current} is the server's copy of the item, or null if it
+ * has been deleted, so the client can rebase and resend just this item.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VersionConflictDTO {
+
+    private String id;
+
+    private Long clientVersion;
+
+    private Long serverVersion;
+
+    private Object current;
+}
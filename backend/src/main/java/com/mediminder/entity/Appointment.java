@@ -43,6 +43,10 @@ public class Appointment {
     @Builder.Default
     private String status = "pending"; // pending, done, missed
     
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
     
@@ -37,6 +37,10 @@ public class MedLog {
     @Column(name = "taken_at")
     private LocalDateTime takenAt;
     
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
     
@@ -40,6 +40,10 @@ public class Medication {
     @Column(name = "notes")
     private String notes;
     
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
     
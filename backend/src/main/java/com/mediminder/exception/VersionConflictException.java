@@ -0,0 +1,19 @@
+package com.mediminder.exception;
+
+import com.mediminder.dto.VersionConflictDTO;
+
+import java.util.List;
+
+public class VersionConflictException extends RuntimeException {
+
+    private final List<VersionConflictDTO> conflicts;
+
+    public VersionConflictException(List<VersionConflictDTO> conflicts) {
+        super(conflicts.size() + " item(s) were modified by another device");
+        this.conflicts = List.copyOf(conflicts);
+    }
+
+    public List<VersionConflictDTO> getConflicts() {
+        return conflicts;
+    }
+}
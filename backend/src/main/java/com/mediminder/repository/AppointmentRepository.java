@@ -4,17 +4,29 @@ import com.mediminder.entity.Appointment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, String> {
+public interface AppointmentRepository extends JpaRepository<Appointment, String>, AppointmentRepositoryCustom {
     
     List<Appointment> findByUserId(String userId);
 
-    Page<Appointment> findByUserId(String userId, Pageable pageable);
-    
-    void deleteByUserIdAndIdNotIn(String userId, List<String> ids);
+    @Query("SELECT new com.mediminder.repository.AppointmentRow(a.id, a.doctorName, a.specialty, a.date, a.time, "
+            + "a.location, a.notes, a.status, a.version) "
+            + "FROM Appointment a WHERE a.user.id = :userId")
+    List<AppointmentRow> findRowsByUserId(@Param("userId") String userId);
+
+    @Query(value = "SELECT new com.mediminder.repository.AppointmentRow(a.id, a.doctorName, a.specialty, a.date, a.time, "
+            + "a.location, a.notes, a.status, a.version) "
+            + "FROM Appointment a WHERE a.user.id = :userId",
+            countQuery = "SELECT COUNT(a) FROM Appointment a WHERE a.user.id = :userId")
+    Page<AppointmentRow> findRowsByUserId(@Param("userId") String userId, Pageable pageable);
     
-    void deleteByUserId(String userId);
+    @Modifying
+    @Query("DELETE FROM Appointment a WHERE a.user.id = :userId")
+    void deleteByUserId(@Param("userId") String userId);
 }
@@ -0,0 +1,13 @@
+package com.mediminder.repository;
+
+import java.util.Collection;
+
+public interface AppointmentRepositoryCustom {
+
+    /**
+     * Deletes the user's appointments whose IDs are not in {@code keepIds}, in a single statement.
+     *
+     * @return The number of deleted rows
+     */
+    int deleteByUserIdExcept(String userId, Collection<String> keepIds);
+}
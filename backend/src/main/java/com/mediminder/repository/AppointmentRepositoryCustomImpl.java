@@ -0,0 +1,17 @@
+package com.mediminder.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class AppointmentRepositoryCustomImpl implements AppointmentRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int deleteByUserIdExcept(String userId, Collection<String> keepIds) {
+        return BulkDeletes.deleteByUserIdExcept(jdbcTemplate, "appointments", userId, keepIds);
+    }
+}
@@ -0,0 +1,9 @@
+package com.mediminder.repository;
+
+/**
+ * Read-only projection of the appointment columns the API returns; selected
+ * directly so list reads don't create managed entities.
+ */
+public record AppointmentRow(String id, String doctorName, String specialty, String date, String time,
+                             String location, String notes, String status, Long version) {
+}
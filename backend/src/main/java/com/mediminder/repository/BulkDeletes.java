@@ -0,0 +1,31 @@
+package com.mediminder.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+
+/**
+ * Set-difference deletes shared by the per-user collection repositories.
+ * The IDs to keep are bound as a single {@code text[]} parameter, so the
+ * statement has two bind parameters no matter how large the list is and
+ * Postgres evaluates it as one anti-join instead of loading and deleting
+ * entities one by one.
+ */
+final class BulkDeletes {
+
+    private BulkDeletes() {
+    }
+
+    static int deleteByUserIdExcept(JdbcTemplate jdbcTemplate, String table, String userId,
+                                    Collection<String> keepIds) {
+        // table is always a compile-time constant from the calling repository
+        String sql = "DELETE FROM " + table + " WHERE user_id = ? AND id <> ALL(?)";
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setString(1, userId);
+            statement.setArray(2, connection.createArrayOf("text", keepIds.toArray()));
+            return statement;
+        });
+    }
+}
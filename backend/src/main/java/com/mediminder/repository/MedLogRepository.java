@@ -4,17 +4,34 @@ import com.mediminder.entity.MedLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface MedLogRepository extends JpaRepository<MedLog, String> {
+public interface MedLogRepository extends JpaRepository<MedLog, String>, MedLogRepositoryCustom {
     
     List<MedLog> findByUserId(String userId);
 
-    Page<MedLog> findByUserId(String userId, Pageable pageable);
-    
-    void deleteByUserIdAndIdNotIn(String userId, List<String> ids);
+    List<MedLog> findByUserIdAndIdIn(String userId, Collection<String> ids);
+
+    // @Query methods get no transaction from SimpleJpaRepository; callers run the row reads in a
+    // read-only one (CacheLoadCoalescer, paged getters) for replica routing and flush mode MANUAL
+    @Query("SELECT new com.mediminder.repository.MedLogRow(m.id, m.medId, m.date, m.time, "
+            + "m.taken, m.takenAt, m.version) "
+            + "FROM MedLog m WHERE m.user.id = :userId")
+    List<MedLogRow> findRowsByUserId(@Param("userId") String userId);
+
+    @Query(value = "SELECT new com.mediminder.repository.MedLogRow(m.id, m.medId, m.date, m.time, "
+            + "m.taken, m.takenAt, m.version) "
+            + "FROM MedLog m WHERE m.user.id = :userId",
+            countQuery = "SELECT COUNT(m) FROM MedLog m WHERE m.user.id = :userId")
+    Page<MedLogRow> findRowsByUserId(@Param("userId") String userId, Pageable pageable);
     
-    void deleteByUserId(String userId);
+    @Modifying
+    @Query("DELETE FROM MedLog m WHERE m.user.id = :userId")
+    void deleteByUserId(@Param("userId") String userId);
 }
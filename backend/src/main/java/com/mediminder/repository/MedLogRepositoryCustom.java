@@ -0,0 +1,35 @@
+package com.mediminder.repository;
+
+import com.mediminder.entity.MedLog;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface MedLogRepositoryCustom {
+
+    /**
+     * Deletes the user's med logs whose IDs are not in {@code keepIds}, in a single statement.
+     *
+     * @return The number of deleted rows
+     */
+    int deleteByUserIdExcept(String userId, Collection<String> keepIds);
+
+    /**
+     * Inserts the log for one dose, or updates taken/takenAt of the user's existing
+     * log for the same (medId, date, time), in a single statement. An existing
+     * row keeps its ID and gets its version incremented.
+     *
+     * @param id ID to use if the row is inserted
+     * @return The row as stored
+     */
+    MedLogRow upsertDose(String userId, String id, String medId, String date, String time, boolean taken,
+                         LocalDateTime takenAt);
+
+    /**
+     * Rewrites existing logs of the user that move to another (medId, date, time):
+     * deletes them, then inserts them with their IDs at the new dose, so a log
+     * inserted later in the same transaction can take a freed dose.
+     */
+    void moveLogs(String userId, List<MedLog> moved);
+}
@@ -0,0 +1,68 @@
+package com.mediminder.repository;
+
+import com.mediminder.entity.MedLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class MedLogRepositoryCustomImpl implements MedLogRepositoryCustom {
+
+    private static final String UPSERT_DOSE_SQL =
+            "INSERT INTO med_logs (id, user_id, med_id, date, time, taken, taken_at, version, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, 0, CURRENT_TIMESTAMP) "
+                    + "ON CONFLICT (user_id, med_id, date, time) DO UPDATE "
+                    + "SET taken = EXCLUDED.taken, taken_at = EXCLUDED.taken_at, version = med_logs.version + 1 "
+                    + "RETURNING id, med_id, date, time, taken, taken_at, version";
+
+    private static final String DELETE_BY_IDS_SQL = "DELETE FROM med_logs WHERE user_id = ? AND id = ANY(?)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO med_logs (id, user_id, med_id, date, time, taken, taken_at, version, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int deleteByUserIdExcept(String userId, Collection<String> keepIds) {
+        return BulkDeletes.deleteByUserIdExcept(jdbcTemplate, "med_logs", userId, keepIds);
+    }
+
+    @Override
+    public MedLogRow upsertDose(String userId, String id, String medId, String date, String time, boolean taken,
+                                LocalDateTime takenAt) {
+        return jdbcTemplate.queryForObject(UPSERT_DOSE_SQL, (rs, rowNum) -> {
+            Timestamp storedTakenAt = rs.getTimestamp("taken_at");
+            return new MedLogRow(rs.getString("id"), rs.getString("med_id"), rs.getString("date"),
+                    rs.getString("time"), rs.getBoolean("taken"),
+                    storedTakenAt != null ? storedTakenAt.toLocalDateTime() : null, rs.getLong("version"));
+        }, id, userId, medId, date, time, taken, takenAt != null ? Timestamp.valueOf(takenAt) : null);
+    }
+
+    @Override
+    public void moveLogs(String userId, List<MedLog> moved) {
+        String[] ids = moved.stream().map(MedLog::getId).toArray(String[]::new);
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DELETE_BY_IDS_SQL);
+            statement.setString(1, userId);
+            statement.setArray(2, connection.createArrayOf("text", ids));
+            return statement;
+        });
+        jdbcTemplate.batchUpdate(INSERT_SQL, moved, moved.size(), (ps, log) -> {
+            ps.setString(1, log.getId());
+            ps.setString(2, userId);
+            ps.setString(3, log.getMedId());
+            ps.setString(4, log.getDate());
+            ps.setString(5, log.getTime());
+            ps.setBoolean(6, Boolean.TRUE.equals(log.getTaken()));
+            ps.setTimestamp(7, log.getTakenAt() != null ? Timestamp.valueOf(log.getTakenAt()) : null);
+            ps.setLong(8, log.getVersion());
+            ps.setTimestamp(9, log.getCreatedAt() != null ? Timestamp.valueOf(log.getCreatedAt()) : null);
+        });
+    }
+}
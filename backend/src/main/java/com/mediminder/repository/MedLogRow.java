@@ -0,0 +1,11 @@
+package com.mediminder.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of the med-log columns the API returns; selected
+ * directly so list reads don't create managed entities.
+ */
+public record MedLogRow(String id, String medId, String date, String time, Boolean taken,
+                        LocalDateTime takenAt, Long version) {
+}
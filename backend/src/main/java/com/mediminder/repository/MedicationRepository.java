@@ -4,17 +4,29 @@ import com.mediminder.entity.Medication;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface MedicationRepository extends JpaRepository<Medication, String> {
+public interface MedicationRepository extends JpaRepository<Medication, String>, MedicationRepositoryCustom {
     
     List<Medication> findByUserId(String userId);
 
-    Page<Medication> findByUserId(String userId, Pageable pageable);
-    
-    void deleteByUserIdAndIdNotIn(String userId, List<String> ids);
+    @Query("SELECT new com.mediminder.repository.MedicationRow(m.id, m.name, m.dosage, m.frequency, "
+            + "m.times, m.notes, m.version) "
+            + "FROM Medication m WHERE m.user.id = :userId")
+    List<MedicationRow> findRowsByUserId(@Param("userId") String userId);
+
+    @Query(value = "SELECT new com.mediminder.repository.MedicationRow(m.id, m.name, m.dosage, m.frequency, "
+            + "m.times, m.notes, m.version) "
+            + "FROM Medication m WHERE m.user.id = :userId",
+            countQuery = "SELECT COUNT(m) FROM Medication m WHERE m.user.id = :userId")
+    Page<MedicationRow> findRowsByUserId(@Param("userId") String userId, Pageable pageable);
     
-    void deleteByUserId(String userId);
+    @Modifying
+    @Query("DELETE FROM Medication m WHERE m.user.id = :userId")
+    void deleteByUserId(@Param("userId") String userId);
 }
@@ -0,0 +1,11 @@
+package com.mediminder.repository;
+
+import java.util.List;
+
+/**
+ * Read-only projection of the medication columns the API returns; selected
+ * directly so list reads don't create managed entities.
+ */
+public record MedicationRow(String id, String name, String dosage, String frequency, List<String> times,
+                            String notes, Long version) {
+}
@@ -0,0 +1,17 @@
+package com.mediminder.repository;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Returns up to {@code limit} users ordered by ID, starting after {@code afterId}
+     * (keyset pagination), each with their medication and med-log counts and last
+     * activity. Aggregates are computed in the same statement, per user on the page,
+     * through the user_id indexes, so the cost grows with the page rather than the
+     * total number of users.
+     *
+     * @param afterId ID of the last user of the previous page, or null for the first page
+     */
+    List<UserSummaryRow> findSummaries(String afterId, int limit);
+}
@@ -0,0 +1,41 @@
+package com.mediminder.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    // The page is cut first, then each user's counts come from one index-driven LATERAL
+    // aggregate per table; GREATEST ignores NULLs in PostgreSQL
+    private static final String SUMMARY_SQL =
+            "SELECT u.id, u.email, u.full_name, u.created_at, m.medication_count, l.med_log_count, "
+                    + "l.taken_count, GREATEST(m.last_created, l.last_created, l.last_taken) AS last_activity "
+                    + "FROM (SELECT id, email, full_name, created_at FROM users WHERE id > ? ORDER BY id LIMIT ?) u "
+                    + "CROSS JOIN LATERAL (SELECT count(*) AS medication_count, max(created_at) AS last_created "
+                    + "FROM medications WHERE user_id = u.id) m "
+                    + "CROSS JOIN LATERAL (SELECT count(*) AS med_log_count, "
+                    + "count(*) FILTER (WHERE taken) AS taken_count, max(created_at) AS last_created, "
+                    + "max(taken_at) AS last_taken FROM med_logs WHERE user_id = u.id) l "
+                    + "ORDER BY u.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<UserSummaryRow> findSummaries(String afterId, int limit) {
+        return jdbcTemplate.query(SUMMARY_SQL, (rs, rowNum) -> new UserSummaryRow(
+                rs.getString("id"), rs.getString("email"), rs.getString("full_name"),
+                toLocalDateTime(rs.getTimestamp("created_at")),
+                rs.getLong("medication_count"), rs.getLong("med_log_count"), rs.getLong("taken_count"),
+                toLocalDateTime(rs.getTimestamp("last_activity"))),
+                afterId != null ? afterId : "", limit);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
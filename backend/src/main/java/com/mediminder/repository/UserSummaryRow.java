@@ -0,0 +1,13 @@
+package com.mediminder.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One user with the aggregates shown in the admin overview.
+ *
+ * @param lastActivity Latest medication creation, log creation or dose taken; null if the user has no data
+ */
+public record UserSummaryRow(String id, String email, String fullName, LocalDateTime createdAt,
+                             long medicationCount, long medLogCount, long takenCount,
+                             LocalDateTime lastActivity) {
+}
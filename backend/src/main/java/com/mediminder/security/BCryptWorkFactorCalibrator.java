@@ -0,0 +1,64 @@
+package com.mediminder.security;
+
+import com.mediminder.config.PasswordHashingProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Picks the BCrypt work factor for this machine by timing a few hashes at
+ * startup. Each extra round doubles the cost, so the search walks up from the
+ * configured minimum and stops at the last strength that stays within the
+ * target latency.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BCryptWorkFactorCalibrator {
+
+    private static final int SAMPLES = 3;
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private final PasswordHashingProperties properties;
+
+    public int resolveStrength() {
+        int minStrength = properties.getStrength();
+        if (!properties.isCalibrate()) {
+            return minStrength;
+        }
+
+        int maxStrength = Math.max(minStrength, properties.getMaxStrength());
+        long targetNanos = properties.getTargetLatencyMs() * 1_000_000L;
+
+        // Warm up the JIT so the first measurement is not inflated
+        new BCryptPasswordEncoder(4).encode(SAMPLE_PASSWORD);
+
+        int chosen = minStrength;
+        for (int strength = minStrength; strength <= maxStrength; strength++) {
+            long elapsed = medianHashNanos(strength);
+            log.debug("BCrypt strength {} takes {} ms", strength, elapsed / 1_000_000);
+            if (elapsed > targetNanos) {
+                break;
+            }
+            chosen = strength;
+        }
+
+        log.info("Calibrated BCrypt strength {} for a target of {} ms", chosen, properties.getTargetLatencyMs());
+        return chosen;
+    }
+
+    private long medianHashNanos(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
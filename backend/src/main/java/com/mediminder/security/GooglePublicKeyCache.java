@@ -0,0 +1,245 @@
+package com.mediminder.security;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.mediminder.config.GoogleAuthProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.cert.CertificateFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Holds Google's ID-token signing keys and refreshes them ahead of their
+ * Cache-Control expiry on a background thread, so logins never wait on the
+ * certificate fetch. If refreshing fails, the expired keys keep being served
+ * for up to {@code app.google.max-stale} (Google rotates keys with overlap).
+ */
+@Component
+@Slf4j
+public class GooglePublicKeyCache {
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age\\s*=\\s*(\\d+)");
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofHours(1);
+
+    private final GoogleAuthProperties properties;
+    private final TaskScheduler taskScheduler;
+    private final Clock clock;
+    private final HttpTransport transport = new NetHttpTransport();
+    private final JsonFactory jsonFactory = GsonFactory.getDefaultInstance();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicBoolean asyncRefreshPending = new AtomicBoolean();
+    private final Timer fetchTimer;
+    private final Counter refreshSuccessCounter;
+    private final Counter refreshFailureCounter;
+    private final Counter staleServedCounter;
+
+    private volatile KeySet current;
+
+    @Autowired
+    public GooglePublicKeyCache(GoogleAuthProperties properties,
+                                TaskScheduler taskScheduler,
+                                MeterRegistry meterRegistry) {
+        this(properties, taskScheduler, meterRegistry, Clock.systemUTC());
+    }
+
+    GooglePublicKeyCache(GoogleAuthProperties properties,
+                         TaskScheduler taskScheduler,
+                         MeterRegistry meterRegistry,
+                         Clock clock) {
+        this.properties = properties;
+        this.taskScheduler = taskScheduler;
+        this.clock = clock;
+        this.fetchTimer = Timer.builder("mediminder.google.certs.fetch")
+                .register(meterRegistry);
+        this.refreshSuccessCounter = Counter.builder("mediminder.google.certs.refresh")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.refreshFailureCounter = Counter.builder("mediminder.google.certs.refresh")
+                .tag("result", "failure")
+                .register(meterRegistry);
+        this.staleServedCounter = Counter.builder("mediminder.google.certs.stale")
+                .register(meterRegistry);
+        Gauge.builder("mediminder.google.certs.age.seconds", this, GooglePublicKeyCache::ageSeconds)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        if (properties.isPrewarm()) {
+            taskScheduler.schedule(this::refreshAndReschedule, clock.instant());
+        }
+    }
+
+    /**
+     * Returns the current signing keys. Fresh keys are returned without any I/O;
+     * expired keys within the max-stale window are returned while a refresh runs
+     * in the background; otherwise the keys are fetched inline.
+     *
+     * @return The signing keys, or an empty list if none could be obtained
+     */
+    public List<PublicKey> getPublicKeys() {
+        KeySet keySet = current;
+        long now = clock.millis();
+        if (keySet != null && now < keySet.expiresAtMillis()) {
+            return keySet.keys();
+        }
+        if (isUsableStale(keySet, now)) {
+            staleServedCounter.increment();
+            triggerAsyncRefresh();
+            return keySet.keys();
+        }
+
+        refresh(false);
+        keySet = current;
+        if (keySet != null && (clock.millis() < keySet.expiresAtMillis() || isUsableStale(keySet, clock.millis()))) {
+            return keySet.keys();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Fetches the certificates now, replacing the cached keys only on success.
+     *
+     * @return true if the keys were refreshed
+     */
+    public boolean refresh() {
+        return refresh(true);
+    }
+
+    private boolean refresh(boolean force) {
+        refreshLock.lock();
+        try {
+            // Another thread may have refreshed while we were waiting for the lock
+            KeySet keySet = current;
+            if (!force && keySet != null && clock.millis() < keySet.expiresAtMillis()) {
+                return true;
+            }
+
+            long start = System.nanoTime();
+            try {
+                current = fetch();
+                refreshSuccessCounter.increment();
+                log.debug("Refreshed {} Google public keys, valid until {}",
+                        current.keys().size(), Instant.ofEpochMilli(current.expiresAtMillis()));
+                return true;
+            } catch (IOException | GeneralSecurityException | RuntimeException e) {
+                refreshFailureCounter.increment();
+                log.warn("Failed to refresh Google public keys: {}", e.getMessage());
+                return false;
+            } finally {
+                fetchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void refreshAndReschedule() {
+        Instant next;
+        if (refresh(true)) {
+            KeySet keySet = current;
+            long lifetime = keySet.expiresAtMillis() - keySet.fetchedAtMillis();
+            long ahead = Math.min(properties.getRefreshAhead().toMillis(), lifetime / 2);
+            long earliest = clock.millis() + properties.getRetryDelay().toMillis();
+            next = Instant.ofEpochMilli(Math.max(keySet.expiresAtMillis() - ahead, earliest));
+        } else {
+            next = clock.instant().plus(properties.getRetryDelay());
+        }
+        taskScheduler.schedule(this::refreshAndReschedule, next);
+    }
+
+    private void triggerAsyncRefresh() {
+        if (asyncRefreshPending.compareAndSet(false, true)) {
+            taskScheduler.schedule(() -> {
+                try {
+                    refresh(false);
+                } finally {
+                    asyncRefreshPending.set(false);
+                }
+            }, clock.instant());
+        }
+    }
+
+    private boolean isUsableStale(KeySet keySet, long now) {
+        return keySet != null && now - keySet.expiresAtMillis() < properties.getMaxStale().toMillis();
+    }
+
+    private KeySet fetch() throws IOException, GeneralSecurityException {
+        HttpResponse response = transport.createRequestFactory()
+                .buildGetRequest(new GenericUrl(properties.getCertsUrl()))
+                .execute();
+        try {
+            long fetchedAt = clock.millis();
+            long maxAgeMillis = cacheTimeMillis(response.getHeaders());
+            GenericJson certificates = jsonFactory.fromString(response.parseAsString(), GenericJson.class);
+
+            CertificateFactory factory = CertificateFactory.getInstance("X.509");
+            List<PublicKey> keys = new ArrayList<>();
+            for (Object pem : certificates.values()) {
+                byte[] bytes = ((String) pem).getBytes(StandardCharsets.UTF_8);
+                keys.add(factory.generateCertificate(new ByteArrayInputStream(bytes)).getPublicKey());
+            }
+            if (keys.isEmpty()) {
+                throw new GeneralSecurityException("Certificate endpoint returned no keys");
+            }
+            return new KeySet(Collections.unmodifiableList(keys), fetchedAt, fetchedAt + maxAgeMillis);
+        } finally {
+            response.disconnect();
+        }
+    }
+
+    private static long cacheTimeMillis(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl == null) {
+            return DEFAULT_MAX_AGE.toMillis();
+        }
+        Matcher matcher = MAX_AGE.matcher(cacheControl);
+        if (!matcher.find()) {
+            return DEFAULT_MAX_AGE.toMillis();
+        }
+        long maxAgeSeconds = Long.parseLong(matcher.group(1));
+        Long age = headers.getAge();
+        if (age != null) {
+            maxAgeSeconds -= age;
+        }
+        return Math.max(0, maxAgeSeconds) * 1000L;
+    }
+
+    private double ageSeconds() {
+        KeySet keySet = current;
+        return keySet == null ? Double.NaN : (clock.millis() - keySet.fetchedAtMillis()) / 1000.0;
+    }
+
+    private record KeySet(List<PublicKey> keys, long fetchedAtMillis, long expiresAtMillis) {
+    }
+}
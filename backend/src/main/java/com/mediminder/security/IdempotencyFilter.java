@@ -0,0 +1,228 @@
+package com.mediminder.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediminder.config.IdempotencyProperties;
+import com.mediminder.service.IdempotencyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Makes POSTs to the collection endpoints safe to retry: a request carrying an
+ * Idempotency-Key that was already answered gets the stored response (marked
+ * with Idempotent-Replayed: true) and never reaches the controller. Runs after
+ * the JWT filter, since keys are scoped to the authenticated user.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyProperties properties;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled()
+                || !"POST".equals(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !properties.getPaths().contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String userId = (String) request.getAttribute("userId");
+        if (userId == null) {
+            // Unauthenticated; let security reject it
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String clientKey = request.getHeader(HEADER);
+        if (clientKey.isBlank() || clientKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST,
+                    HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        if (request.getContentLengthLong() > properties.getMaxRequestBytes()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        // Content-Length may be absent (chunked), so never read more than the limit
+        ServletInputStream in = request.getInputStream();
+        byte[] body = in.readNBytes(properties.getMaxRequestBytes() + 1);
+        if (body.length > properties.getMaxRequestBytes()) {
+            log.debug("Skipping {} for a request body over {} bytes", HEADER, properties.getMaxRequestBytes());
+            filterChain.doFilter(new BufferedBodyRequest(request, body, in), response);
+            return;
+        }
+        String key = sha256((userId + "\n" + request.getServletPath() + "\n" + clientKey)
+                .getBytes(StandardCharsets.UTF_8));
+        String fingerprint = sha256(body);
+
+        IdempotencyService.Lookup lookup = idempotencyService.begin(key, userId, fingerprint);
+        switch (lookup.outcome()) {
+            case REPLAY -> replay(response, lookup.response());
+            case IN_PROGRESS -> writeError(response, HttpServletResponse.SC_CONFLICT,
+                    "A request with this " + HEADER + " is still being processed");
+            case MISMATCH -> writeError(response, 422,
+                    HEADER + " was already used with a different request body");
+            case STARTED -> execute(request, response, filterChain, body, key, fingerprint);
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                         byte[] body, String key, String fingerprint) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(new BufferedBodyRequest(request, body, null), wrapper);
+            int status = wrapper.getStatus();
+            // 5xx may be transient, so a retry should run the request again
+            if (status < 500 && wrapper.getContentSize() <= properties.getMaxResponseBytes()) {
+                idempotencyService.complete(key, fingerprint, new IdempotencyService.StoredResponse(
+                        status, wrapper.getContentType(), wrapper.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyService.abandon(key);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(HttpServletResponse response, IdempotencyService.StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.body() != null) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", message));
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Replays a body that has already been read for fingerprinting, followed by
+     * the unread rest of the original stream when the body was too large to buffer.
+     */
+    private static class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+        private final InputStream rest;
+
+        BufferedBodyRequest(HttpServletRequest request, byte[] body, InputStream rest) {
+            super(request);
+            this.body = body;
+            this.rest = rest;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream buffered = new ByteArrayInputStream(body);
+            InputStream in = rest != null ? new SequenceInputStream(buffered, rest) : buffered;
+            return new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    int b = in.read();
+                    finished = b == -1;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = in.read(b, off, len);
+                    finished = n == -1;
+                    return n;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished || (rest == null && buffered.available() == 0);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // Reads never block on the buffered part, so report everything as available at once
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return rest != null ? super.getContentLength() : body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return rest != null ? super.getContentLengthLong() : body.length;
+        }
+    }
+}
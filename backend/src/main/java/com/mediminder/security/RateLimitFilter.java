@@ -16,6 +16,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 @RequiredArgsConstructor
@@ -109,11 +110,14 @@ public class RateLimitFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Simple rate limit bucket using fixed window counter
+     * Simple rate limit bucket using fixed window counter.
+     * Guarded by a ReentrantLock rather than synchronized so that virtual threads
+     * are not pinned to their carrier while contending for the same bucket.
      */
     private static class RateLimitBucket {
         private final int windowSeconds;
         private final AtomicInteger count = new AtomicInteger(0);
+        private final ReentrantLock lock = new ReentrantLock();
         private volatile long windowStart;
 
         public RateLimitBucket(int windowSeconds) {
@@ -121,18 +125,23 @@ public class RateLimitFilter extends OncePerRequestFilter {
             this.windowStart = System.currentTimeMillis();
         }
 
-        public synchronized boolean tryConsume(int maxRequests) {
-            long now = System.currentTimeMillis();
-            if (now - windowStart > windowSeconds * 1000L) {
-                // Reset window
-                windowStart = now;
-                count.set(0);
-            }
-            if (count.get() >= maxRequests) {
-                return false;
+        public boolean tryConsume(int maxRequests) {
+            lock.lock();
+            try {
+                long now = System.currentTimeMillis();
+                if (now - windowStart > windowSeconds * 1000L) {
+                    // Reset window
+                    windowStart = now;
+                    count.set(0);
+                }
+                if (count.get() >= maxRequests) {
+                    return false;
+                }
+                count.incrementAndGet();
+                return true;
+            } finally {
+                lock.unlock();
             }
-            count.incrementAndGet();
-            return true;
         }
 
         public int getRemainingRequests(int maxRequests) {
@@ -0,0 +1,92 @@
+package com.mediminder.service;
+
+import com.mediminder.config.AdminProperties;
+import com.mediminder.config.CacheConfig;
+import com.mediminder.dto.AdminUserPageDTO;
+import com.mediminder.dto.AdminUserSummaryDTO;
+import com.mediminder.exception.ForbiddenException;
+import com.mediminder.exception.ResourceNotFoundException;
+import com.mediminder.repository.UserRepository;
+import com.mediminder.repository.UserSummaryRow;
+import com.mediminder.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read-only overview of all users for the admin screen.
+ */
+@Service
+@RequiredArgsConstructor
+public class AdminService {
+
+    private final UserRepository userRepository;
+    private final AdminProperties adminProperties;
+    private final CacheManager cacheManager;
+
+    public void requireAdmin(UserPrincipal principal) {
+        String email = principal.getEmail();
+        if (email == null || adminProperties.getEmails().stream().noneMatch(email::equalsIgnoreCase)) {
+            throw new ForbiddenException("Admin access required");
+        }
+    }
+
+    /**
+     * Returns one page of users ordered by ID with their aggregates. Pages are
+     * cached for {@code app.admin.summary-cache-ttl}, so counts may lag behind
+     * recent writes by that much.
+     *
+     * @param after Cursor from the previous page, or null for the first page
+     * @param size  Requested page size; null for the default, capped at the configured maximum
+     */
+    @Transactional(readOnly = true)
+    public AdminUserPageDTO getUsers(String after, Integer size) {
+        int limit = size != null
+                ? Math.max(1, Math.min(size, adminProperties.getMaxPageSize()))
+                : adminProperties.getPageSize();
+        String cursor = after != null && !after.isBlank() ? after : null;
+        Cache cache = cacheManager.getCache(CacheConfig.ADMIN_USER_SUMMARIES_CACHE);
+        String key = (cursor != null ? cursor : "") + ":" + limit;
+        return cache != null ? cache.get(key, () -> loadUsers(cursor, limit)) : loadUsers(cursor, limit);
+    }
+
+    public void requireUser(String userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found");
+        }
+    }
+
+    private AdminUserPageDTO loadUsers(String after, int limit) {
+        // One extra row tells whether another page follows
+        List<UserSummaryRow> rows = userRepository.findSummaries(after, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<UserSummaryRow> page = hasMore ? rows.subList(0, limit) : rows;
+        return AdminUserPageDTO.builder()
+                .users(page.stream().map(AdminService::toDTO).toList())
+                .nextCursor(hasMore ? page.get(page.size() - 1).id() : null)
+                .build();
+    }
+
+    static AdminUserSummaryDTO toDTO(UserSummaryRow row) {
+        return AdminUserSummaryDTO.builder()
+                .id(row.id())
+                .email(row.email())
+                .fullName(row.fullName())
+                .createdAt(toString(row.createdAt()))
+                .medicationCount(row.medicationCount())
+                .medLogCount(row.medLogCount())
+                .takenCount(row.takenCount())
+                .adherence(row.medLogCount() > 0 ? (double) row.takenCount() / row.medLogCount() : null)
+                .lastActivity(toString(row.lastActivity()))
+                .build();
+    }
+
+    private static String toString(LocalDateTime value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.mediminder.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes each relayed event as a Spring application event, so in-process
+ * subscribers only need an {@code @EventListener} for {@link OutboxEvent}.
+ * Listeners run on the relay thread; a listener that throws makes the batch
+ * be relayed again.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApplicationEventOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public String name() {
+        return "application-events";
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
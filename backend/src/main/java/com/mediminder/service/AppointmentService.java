@@ -2,9 +2,12 @@ package com.mediminder.service;
 
 import com.mediminder.config.CacheConfig;
 import com.mediminder.dto.AppointmentDTO;
+import com.mediminder.dto.VersionConflictDTO;
 import com.mediminder.entity.Appointment;
 import com.mediminder.entity.User;
+import com.mediminder.exception.VersionConflictException;
 import com.mediminder.repository.AppointmentRepository;
+import com.mediminder.repository.AppointmentRow;
 import com.mediminder.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,7 +18,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,43 +31,76 @@ public class AppointmentService {
 
     private final AppointmentRepository appointmentRepository;
     private final AuthService authService;
+    private final CollectionVersionService collectionVersionService;
+    private final CacheLoadCoalescer cacheLoadCoalescer;
+    private final UserWriteLockService userWriteLockService;
+    private final OutboxService outboxService;
 
     @Cacheable(value = CacheConfig.APPOINTMENTS_CACHE, key = "#userId")
     public List<AppointmentDTO> getAppointments(String userId) {
-        return appointmentRepository.findByUserId(userId).stream()
+        return cacheLoadCoalescer.load(CacheConfig.APPOINTMENTS_CACHE, userId, () -> appointmentRepository.findRowsByUserId(userId).stream()
                 .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
+    @Transactional(readOnly = true)
     public Page<AppointmentDTO> getAppointments(String userId, Pageable pageable) {
-        return appointmentRepository.findByUserId(userId, pageable)
+        return appointmentRepository.findRowsByUserId(userId, pageable)
                 .map(this::toDTO);
     }
 
     @CacheEvict(value = CacheConfig.APPOINTMENTS_CACHE, key = "#userId")
     @Transactional
     public List<AppointmentDTO> saveAppointments(String userId, List<AppointmentDTO> appointments) {
+        userWriteLockService.lock(userId);
         User user = authService.getUserById(userId);
+        Map<String, Appointment> existing = appointmentRepository.findByUserId(userId).stream()
+                .collect(Collectors.toMap(Appointment::getId, Function.identity()));
+
+        // Check every item first so a conflicting save changes nothing
+        List<VersionConflictDTO> conflicts = new ArrayList<>();
+        List<Appointment> savedAppointments = new ArrayList<>(appointments.size());
+        List<Appointment> toInsert = new ArrayList<>();
+        for (AppointmentDTO dto : appointments) {
+            Appointment current = dto.getId() != null ? existing.get(dto.getId()) : null;
+            if (dto.getVersion() != null && (current == null || !dto.getVersion().equals(current.getVersion()))) {
+                conflicts.add(VersionConflictDTO.builder()
+                        .id(dto.getId())
+                        .clientVersion(dto.getVersion())
+                        .serverVersion(current != null ? current.getVersion() : null)
+                        .current(current != null ? toDTO(current) : null)
+                        .build());
+            } else if (current != null) {
+                applyChanges(current, dto);
+                savedAppointments.add(current);
+            } else {
+                Appointment created = toEntity(dto, user);
+                toInsert.add(created);
+                savedAppointments.add(created);
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new VersionConflictException(conflicts);
+        }
 
-        // Get existing IDs
+        // Delete appointments not in the new list
         List<String> newIds = appointments.stream()
                 .map(AppointmentDTO::getId)
                 .filter(id -> id != null && !id.isEmpty())
                 .toList();
-
-        // Delete appointments not in the new list
         if (!newIds.isEmpty()) {
-            appointmentRepository.deleteByUserIdAndIdNotIn(userId, newIds);
+            appointmentRepository.deleteByUserIdExcept(userId, newIds);
         } else {
             appointmentRepository.deleteByUserId(userId);
         }
 
-        // Save all appointments
-        List<Appointment> entitiesToSave = appointments.stream()
-                .map(dto -> toEntity(dto, user))
-                .toList();
+        // Updated appointments are managed and flushed by dirty checking; flushing now assigns their new versions
+        appointmentRepository.saveAll(toInsert);
+        appointmentRepository.flush();
 
-        List<Appointment> savedAppointments = appointmentRepository.saveAll(entitiesToSave);
+        outboxService.record(userId, OutboxService.APPOINTMENTS, OutboxService.REPLACED,
+                Map.of("count", savedAppointments.size()));
+        collectionVersionService.bump(userId, CacheConfig.APPOINTMENTS_CACHE);
 
         return savedAppointments.stream()
                 .map(this::toDTO)
@@ -71,7 +110,24 @@ public class AppointmentService {
     @CacheEvict(value = CacheConfig.APPOINTMENTS_CACHE, key = "#userId")
     @Transactional
     public void deleteAllAppointments(String userId) {
+        userWriteLockService.lock(userId);
         appointmentRepository.deleteByUserId(userId);
+        outboxService.record(userId, OutboxService.APPOINTMENTS, OutboxService.CLEARED, Map.of());
+        collectionVersionService.bump(userId, CacheConfig.APPOINTMENTS_CACHE);
+    }
+
+    private AppointmentDTO toDTO(AppointmentRow row) {
+        return AppointmentDTO.builder()
+                .id(row.id())
+                .doctorName(row.doctorName())
+                .specialty(row.specialty())
+                .date(row.date())
+                .time(row.time())
+                .location(row.location())
+                .notes(row.notes())
+                .status(row.status())
+                .version(row.version())
+                .build();
     }
 
     private AppointmentDTO toDTO(Appointment appointment) {
@@ -84,6 +140,7 @@ public class AppointmentService {
                 .location(appointment.getLocation())
                 .notes(appointment.getNotes())
                 .status(appointment.getStatus())
+                .version(appointment.getVersion())
                 .build();
     }
 
@@ -100,4 +157,14 @@ public class AppointmentService {
                 .status(dto.getStatus() != null ? dto.getStatus() : "pending")
                 .build();
     }
+
+    private void applyChanges(Appointment appointment, AppointmentDTO dto) {
+        appointment.setDoctorName(dto.getDoctorName());
+        appointment.setSpecialty(dto.getSpecialty());
+        appointment.setDate(dto.getDate());
+        appointment.setTime(dto.getTime());
+        appointment.setLocation(dto.getLocation());
+        appointment.setNotes(dto.getNotes());
+        appointment.setStatus(dto.getStatus() != null ? dto.getStatus() : "pending");
+    }
 }
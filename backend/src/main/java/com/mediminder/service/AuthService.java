@@ -10,7 +10,6 @@ import com.mediminder.exception.ResourceNotFoundException;
 import com.mediminder.security.JwtTokenProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,10 +19,15 @@ import org.springframework.transaction.annotation.Transactional;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtTokenProvider tokenProvider;
 
-    @Transactional
+    /**
+     * Not transactional: hashing can wait for a slot in PasswordHashingService, and
+     * no connection should be held meanwhile. The lookup and the insert each run in
+     * their own short repository transaction; a concurrent registration of the same
+     * email fails the insert on the unique index.
+     */
     public AuthResponse register(AuthRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new ConflictException("Email already registered");
@@ -31,7 +35,7 @@ public class AuthService {
 
         User user = User.builder()
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHashingService.encode(request.getPassword()))
                 .fullName(request.getEmail().split("@")[0])
                 .provider("local")
                 .build();
@@ -49,15 +53,24 @@ public class AuthService {
                 .build();
     }
 
-    @Transactional
+    /**
+     * Not transactional, like {@link #register}: the password is verified (and
+     * rehashed) between the lookup and the single-column update.
+     */
     public AuthResponse login(AuthRequest request) {
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new AuthenticationException("Invalid email or password"));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new AuthenticationException("Invalid email or password");
         }
 
+        // Rehash with the current work factor while the plaintext is at hand
+        if (passwordHashingService.upgradeEncoding(user.getPassword())) {
+            userRepository.updatePassword(user.getId(), passwordHashingService.encode(request.getPassword()));
+            log.info("Upgraded password hash for user {}", user.getId());
+        }
+
         String token = tokenProvider.generateToken(user.getId(), user.getEmail());
 
         return AuthResponse.builder()
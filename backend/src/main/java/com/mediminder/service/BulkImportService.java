@@ -0,0 +1,154 @@
+package com.mediminder.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediminder.dto.ImportResultDTO;
+import com.mediminder.exception.BadRequestException;
+import com.mediminder.exception.ConflictException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bulk imports a user's history through PostgreSQL COPY. Input is streamed
+ * into a per-transaction staging table and merged into the real table with a
+ * single statement, so memory use does not depend on the file size.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    /**
+     * SQLSTATE classes: constraint violations (e.g. 23505 unique) and malformed
+     * input (e.g. 22P02 invalid text, 22P04 bad COPY format)
+     */
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+    private static final String DATA_EXCEPTION = "22";
+
+    private final DataSource dataSource;
+    private final AuthService authService;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final CollectionVersionService collectionVersionService;
+    private final UserWriteLockService userWriteLockService;
+    private final OutboxService outboxService;
+
+    @Transactional
+    public ImportResultDTO importCollection(String userId, ImportCollection collection, Format format,
+                                            InputStream input) {
+        // Fail fast (and satisfy the foreign key) before streaming anything
+        authService.getUserById(userId);
+
+        long start = System.nanoTime();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        long received;
+        long imported;
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(collection.createStagingTableSql());
+            }
+
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            received = format == Format.CSV
+                    ? copyCsv(pgConnection, collection, input)
+                    : copyNdjson(pgConnection, collection, input);
+
+            // Staging is private to this transaction; only the merge needs the user's write lock
+            userWriteLockService.lock(userId);
+
+            Optional<String> freeNaturalKeySql = collection.freeNaturalKeySql();
+            if (freeNaturalKeySql.isPresent()) {
+                try (PreparedStatement free = connection.prepareStatement(freeNaturalKeySql.get())) {
+                    free.setString(1, userId);
+                    free.executeUpdate();
+                }
+            }
+
+            try (PreparedStatement merge = connection.prepareStatement(collection.mergeSql())) {
+                merge.setString(1, userId);
+                imported = merge.executeUpdate();
+            }
+        } catch (SQLException e) {
+            // The driver's message names tables, constraints and values, so it is only logged
+            log.warn("Bulk import of {} for user {} failed: {}", collection.getPath(), userId, e.getMessage());
+            String state = e.getSQLState() != null ? e.getSQLState() : "";
+            if (state.startsWith(INTEGRITY_CONSTRAINT_VIOLATION)) {
+                // e.g. two staged rows swapping natural keys; the unique index is not deferrable
+                throw new ConflictException("Import conflicts with existing " + collection.getPath());
+            }
+            if (state.startsWith(DATA_EXCEPTION)) {
+                throw new BadRequestException("Import failed: rows must match the columns "
+                        + collection.csvHeader() + " with valid values");
+            }
+            throw new IllegalStateException("Bulk import of " + collection.getPath() + " failed", e);
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read import body: " + e.getMessage());
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+
+        outboxService.record(userId, collection.getPath(), OutboxService.IMPORTED, Map.of("count", imported));
+
+        Cache cache = cacheManager.getCache(collection.getCacheName());
+        if (cache != null) {
+            cache.evict(userId);
+        }
+        collectionVersionService.bump(userId, collection.getCacheName());
+
+        long durationMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        long rowsPerSecond = received * 1000 / durationMs;
+        log.info("Imported {}/{} {} rows for user {} in {} ms ({} rows/s)",
+                imported, received, collection.getPath(), userId, durationMs, rowsPerSecond);
+
+        return ImportResultDTO.builder()
+                .collection(collection.getPath())
+                .rowsReceived(received)
+                .rowsImported(imported)
+                .rowsSkipped(received - imported)
+                .durationMs(durationMs)
+                .rowsPerSecond(rowsPerSecond)
+                .build();
+    }
+
+    private long copyCsv(PGConnection connection, ImportCollection collection, InputStream input)
+            throws SQLException, IOException {
+        return connection.getCopyAPI().copyIn(collection.copySql(true), input, COPY_BUFFER_SIZE);
+    }
+
+    private long copyNdjson(PGConnection connection, ImportCollection collection, InputStream input)
+            throws SQLException, IOException {
+        PGCopyOutputStream copy = new PGCopyOutputStream(connection, collection.copySql(false), COPY_BUFFER_SIZE);
+        try (copy; MappingIterator<JsonNode> rows = objectMapper.readerFor(JsonNode.class).readValues(input)) {
+            while (rows.hasNextValue()) {
+                JsonNode row = rows.nextValue();
+                if (!row.isObject()) {
+                    throw new BadRequestException("Each NDJSON line must be a JSON object");
+                }
+                copy.write(collection.toCsvRow(row).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return copy.getHandledRowCount();
+    }
+}
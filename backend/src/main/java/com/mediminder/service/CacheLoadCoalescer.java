@@ -0,0 +1,86 @@
+package com.mediminder.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight loading for the per-user collection caches: concurrent cache
+ * misses for the same user and collection share one database load instead of
+ * each running their own.
+ *
+ * Loads are keyed by the collection version as well, so a request arriving
+ * after a committed write never joins a load that started before it.
+ *
+ * Each load runs in its own read-only transaction, which routes it to the
+ * replica and reads with flush mode MANUAL. Only the loading thread holds a
+ * connection; waiters and cache hits do not.
+ */
+@Component
+public class CacheLoadCoalescer {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final CollectionVersionService collectionVersionService;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CacheLoadCoalescer(MeterRegistry meterRegistry,
+                              CollectionVersionService collectionVersionService,
+                              PlatformTransactionManager transactionManager) {
+        this.meterRegistry = meterRegistry;
+        this.collectionVersionService = collectionVersionService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Runs the loader in a read-only transaction, or waits for an identical load
+     * already in progress. Callers should not wrap this in a transaction of their
+     * own: a waiter would hold a pooled connection while doing nothing.
+     *
+     * @param collection One of the {@code CacheConfig} collection cache names
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(String collection, String userId, Supplier<T> loader) {
+        String key = collection + ":" + userId + ":" + collectionVersionService.etag(userId, collection);
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            counter("mediminder.cache.load.coalesced", collection).increment();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+
+        counter("mediminder.cache.load", collection).increment();
+        try {
+            T value = readOnlyTransaction.execute(status -> loader.get());
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private Counter counter(String name, String collection) {
+        return Counter.builder(name)
+                .tag("cache", collection)
+                .register(meterRegistry);
+    }
+}
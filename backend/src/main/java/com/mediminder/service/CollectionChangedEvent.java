@@ -0,0 +1,9 @@
+package com.mediminder.service;
+
+/**
+ * Published after a transaction that changed one of a user's collections commits.
+ *
+ * @param collection One of the {@code CacheConfig} collection cache names
+ */
+public record CollectionChangedEvent(String userId, String collection) {
+}
@@ -0,0 +1,102 @@
+package com.mediminder.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks a version per user and collection so list endpoints can answer
+ * conditional GETs without touching the cache or the database.
+ *
+ * Versions live in memory only. Every version handed out is unique within this
+ * process (including after eviction), and ETags carry a per-process boot ID, so
+ * after a restart, or when an ETag issued by one instance is revalidated on
+ * another, the ETag does not match and the full list is sent (200).
+ *
+ * ETags are only correct for a single instance, though. Nothing tells this
+ * process about a write served by another instance. If a client revalidates
+ * here after such a write, it gets a false 304 until the entry expires; the
+ * per-instance list caches are stale in the same way. Deployments with several
+ * instances must route each user's requests to one instance (sticky sessions).
+ */
+@Service
+public class CollectionVersionService implements ApplicationEventPublisherAware {
+
+    private static final int MAX_ENTRIES = 100_000;
+    private static final Duration IDLE_EXPIRY = Duration.ofDays(1);
+
+    private final String bootId = Long.toString(UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE, 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Cache<String, Long> versions = Caffeine.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterAccess(IDLE_EXPIRY)
+            .build();
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Strong ETag (quoted) for the current version of a user's collection.
+     *
+     * @param collection One of the {@code CacheConfig} collection cache names
+     */
+    public String etag(String userId, String collection) {
+        return "\"" + bootId + "-" + version(userId, collection) + "\"";
+    }
+
+    /**
+     * Strong ETag covering several collections at once; changes when any of them does.
+     */
+    public String etag(String userId, String... collections) {
+        StringBuilder etag = new StringBuilder("\"").append(bootId);
+        for (String collection : collections) {
+            etag.append('-').append(version(userId, collection));
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Moves the collection to a new version. Inside a transaction this happens
+     * after commit, so a client can never pair the new ETag with old data.
+     * A {@link CollectionChangedEvent} is published once the new version applies.
+     */
+    public void bump(String userId, String collection) {
+        String key = key(userId, collection);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(key, userId, collection);
+                }
+            });
+        } else {
+            apply(key, userId, collection);
+        }
+    }
+
+    private void apply(String key, String userId, String collection) {
+        versions.put(key, sequence.incrementAndGet());
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new CollectionChangedEvent(userId, collection));
+        }
+    }
+
+    private String version(String userId, String collection) {
+        return Long.toString(versions.get(key(userId, collection), k -> sequence.incrementAndGet()), 36);
+    }
+
+    private static String key(String userId, String collection) {
+        return collection + ":" + userId;
+    }
+}
@@ -0,0 +1,169 @@
+package com.mediminder.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediminder.config.ExportProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams a user's complete data set as a zip of NDJSON files. Rows go from a
+ * server-side cursor straight into the zip stream, one at a time, so heap use
+ * does not grow with the size of the history. Writes to the response block
+ * when a client reads slowly, which in turn pauses the cursor.
+ */
+@Service
+@Slf4j
+public class ExportService {
+
+    private static final String MEDICATIONS_SQL =
+            "SELECT id, name, dosage, frequency, times, notes, created_at FROM medications WHERE user_id = ? ORDER BY id";
+    private static final String MED_LOGS_SQL =
+            "SELECT id, med_id, date, time, taken, taken_at, created_at FROM med_logs WHERE user_id = ? ORDER BY id";
+    private static final String APPOINTMENTS_SQL =
+            "SELECT id, doctor_name, specialty, date, time, location, notes, status, created_at "
+                    + "FROM appointments WHERE user_id = ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(DataSource dataSource,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         ExportProperties properties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // PostgreSQL only honours the fetch size (cursor mode) inside a transaction
+        this.jdbcTemplate.setFetchSize(properties.getFetchSize());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setTimeout(properties.getTimeoutSeconds());
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes the export zip for a user to the given stream. The stream is finished
+     * but not closed.
+     *
+     * @return The number of rows written across all files
+     */
+    public long writeExport(String userId, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(zip);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        long rows;
+        try {
+            rows = transactionTemplate.execute(status -> {
+                long count = writeEntry(zip, generator, "medications.ndjson", MEDICATIONS_SQL, userId,
+                        this::writeMedication);
+                count += writeEntry(zip, generator, "med_logs.ndjson", MED_LOGS_SQL, userId,
+                        this::writeMedLog);
+                count += writeEntry(zip, generator, "appointments.ndjson", APPOINTMENTS_SQL, userId,
+                        this::writeAppointment);
+                return count;
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client went away mid-download
+            throw e.getCause();
+        }
+        zip.finish();
+        zip.flush();
+
+        long durationMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Exported {} rows for user {} in {} ms ({} rows/s)",
+                rows, userId, durationMs, rows * 1000 / durationMs);
+        return rows;
+    }
+
+    private long writeEntry(ZipOutputStream zip, JsonGenerator generator, String name, String sql,
+                            String userId, RowWriter rowWriter) {
+        long[] count = {0};
+        try {
+            zip.putNextEntry(new ZipEntry(name));
+            jdbcTemplate.query(sql, rs -> {
+                try {
+                    generator.writeStartObject();
+                    rowWriter.write(generator, rs);
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, userId);
+            generator.flush();
+            zip.closeEntry();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count[0];
+    }
+
+    private void writeMedication(JsonGenerator g, ResultSet rs) throws IOException, SQLException {
+        g.writeStringField("id", rs.getString("id"));
+        g.writeStringField("name", rs.getString("name"));
+        g.writeStringField("dosage", rs.getString("dosage"));
+        g.writeStringField("frequency", rs.getString("frequency"));
+        String times = rs.getString("times");
+        g.writeFieldName("times");
+        if (times == null) {
+            g.writeNull();
+        } else {
+            // Already JSON in the jsonb column
+            g.writeRawValue(times);
+        }
+        g.writeStringField("notes", rs.getString("notes"));
+        writeTimestamp(g, "createdAt", rs.getTimestamp("created_at"));
+    }
+
+    private void writeMedLog(JsonGenerator g, ResultSet rs) throws IOException, SQLException {
+        g.writeStringField("id", rs.getString("id"));
+        g.writeStringField("medId", rs.getString("med_id"));
+        g.writeStringField("date", rs.getString("date"));
+        g.writeStringField("time", rs.getString("time"));
+        g.writeBooleanField("taken", rs.getBoolean("taken"));
+        writeTimestamp(g, "takenAt", rs.getTimestamp("taken_at"));
+        writeTimestamp(g, "createdAt", rs.getTimestamp("created_at"));
+    }
+
+    private void writeAppointment(JsonGenerator g, ResultSet rs) throws IOException, SQLException {
+        g.writeStringField("id", rs.getString("id"));
+        g.writeStringField("doctorName", rs.getString("doctor_name"));
+        g.writeStringField("specialty", rs.getString("specialty"));
+        g.writeStringField("date", rs.getString("date"));
+        g.writeStringField("time", rs.getString("time"));
+        g.writeStringField("location", rs.getString("location"));
+        g.writeStringField("notes", rs.getString("notes"));
+        g.writeStringField("status", rs.getString("status"));
+        writeTimestamp(g, "createdAt", rs.getTimestamp("created_at"));
+    }
+
+    private static void writeTimestamp(JsonGenerator g, String field, Timestamp value) throws IOException {
+        if (value == null) {
+            g.writeNullField(field);
+        } else {
+            g.writeStringField(field, DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value.toLocalDateTime()));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(JsonGenerator generator, ResultSet rs) throws IOException, SQLException;
+    }
+}
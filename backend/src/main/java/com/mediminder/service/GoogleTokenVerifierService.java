@@ -1,15 +1,18 @@
 package com.mediminder.service;
 
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
-import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
-import jakarta.annotation.PostConstruct;
+import com.mediminder.security.GooglePublicKeyCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.security.PublicKey;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Verifies Google ID tokens server-side using Google's public keys.
@@ -20,17 +23,21 @@ import java.util.Collections;
 @Slf4j
 public class GoogleTokenVerifierService {
 
-    @Value("${spring.security.oauth2.client.registration.google.client-id}")
-    private String googleClientId;
+    private static final List<String> ISSUERS = List.of("accounts.google.com", "https://accounts.google.com");
+    private static final long ACCEPTABLE_TIME_SKEW_SECONDS = 300;
 
-    private GoogleIdTokenVerifier verifier;
+    private final GooglePublicKeyCache publicKeyCache;
+    private final MeterRegistry meterRegistry;
+    private final JsonFactory jsonFactory = GsonFactory.getDefaultInstance();
+    private final List<String> audience;
 
-    @PostConstruct
-    public void init() {
-        this.verifier = new GoogleIdTokenVerifier.Builder(
-                new NetHttpTransport(), GsonFactory.getDefaultInstance())
-                .setAudience(Collections.singletonList(googleClientId))
-                .build();
+    public GoogleTokenVerifierService(
+            @Value("${spring.security.oauth2.client.registration.google.client-id}") String googleClientId,
+            GooglePublicKeyCache publicKeyCache,
+            MeterRegistry meterRegistry) {
+        this.publicKeyCache = publicKeyCache;
+        this.meterRegistry = meterRegistry;
+        this.audience = Collections.singletonList(googleClientId);
         log.info("GoogleTokenVerifierService initialized with client ID: {}...",
                 googleClientId.substring(0, Math.min(8, googleClientId.length())));
     }
@@ -42,16 +49,32 @@ public class GoogleTokenVerifierService {
      * @return The verified token payload, or null if verification fails
      */
     public GoogleIdToken.Payload verify(String idTokenString) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "invalid";
         try {
-            GoogleIdToken idToken = verifier.verify(idTokenString);
-            if (idToken != null) {
-                return idToken.getPayload();
+            GoogleIdToken idToken = GoogleIdToken.parse(jsonFactory, idTokenString);
+            if (!idToken.verifyAudience(audience)
+                    || !idToken.verifyIssuer(ISSUERS)
+                    || !idToken.verifyTime(System.currentTimeMillis(), ACCEPTABLE_TIME_SKEW_SECONDS)) {
+                log.warn("Google ID token verification failed: token is invalid or expired");
+                return null;
             }
-            log.warn("Google ID token verification failed: token is invalid or expired");
+            for (PublicKey publicKey : publicKeyCache.getPublicKeys()) {
+                if (idToken.verifySignature(publicKey)) {
+                    outcome = "valid";
+                    return idToken.getPayload();
+                }
+            }
+            log.warn("Google ID token verification failed: signature does not match any Google key");
             return null;
         } catch (Exception e) {
+            outcome = "error";
             log.error("Error verifying Google ID token: {}", e.getMessage());
             return null;
+        } finally {
+            sample.stop(Timer.builder("mediminder.google.token.verify")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
         }
     }
 }
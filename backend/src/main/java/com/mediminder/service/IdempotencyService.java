@@ -0,0 +1,180 @@
+package com.mediminder.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mediminder.config.IdempotencyProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Remembers the response to each (user, path, Idempotency-Key) so a retried
+ * POST is answered from the stored response instead of re-running the save.
+ * Responses are kept in a bounded in-memory cache and, optionally, in the
+ * idempotency_keys table so other instances see them too.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    /**
+     * In-progress rows older than this are treated as abandoned (instance died mid-request)
+     */
+    private static final Duration IN_PROGRESS_TIMEOUT = Duration.ofMinutes(5);
+
+    /**
+     * Rough per-entry cost on top of the stored body (key, fingerprint, records, map node)
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    public enum Outcome {
+        /** First request for this key: run it, then call complete() or abandon() */
+        STARTED,
+        /** A response is stored: replay it */
+        REPLAY,
+        /** The first request with this key has not finished yet */
+        IN_PROGRESS,
+        /** The key was used before with a different request body */
+        MISMATCH
+    }
+
+    public record StoredResponse(int status, String contentType, byte[] body) {
+    }
+
+    public record Lookup(Outcome outcome, StoredResponse response) {
+    }
+
+    private record Entry(String fingerprint, StoredResponse response) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdempotencyProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final LeaderElectionService leaderElectionService;
+    private final Cache<String, Entry> entries;
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate,
+                              IdempotencyProperties properties,
+                              MeterRegistry meterRegistry,
+                              LeaderElectionService leaderElectionService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.leaderElectionService = leaderElectionService;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxCacheBytes())
+                .weigher(IdempotencyService::weigh)
+                .expireAfterWrite(properties.getTtl())
+                .build();
+    }
+
+    private static int weigh(String key, Entry entry) {
+        StoredResponse response = entry.response();
+        return ENTRY_OVERHEAD_BYTES + (response != null && response.body() != null ? response.body().length : 0);
+    }
+
+    /**
+     * Claims the key for this request, or reports what to do instead.
+     *
+     * @param key         Hash of user, path and client-supplied key
+     * @param fingerprint Hash of the request body
+     */
+    public Lookup begin(String key, String userId, String fingerprint) {
+        Entry claim = new Entry(fingerprint, null);
+        Entry existing = entries.asMap().putIfAbsent(key, claim);
+        Lookup lookup;
+        if (existing != null) {
+            lookup = evaluate(existing, fingerprint);
+        } else if (properties.isJdbcEnabled()) {
+            lookup = beginInDatabase(key, userId, fingerprint);
+            if (lookup.outcome() == Outcome.REPLAY) {
+                entries.put(key, new Entry(fingerprint, lookup.response()));
+            } else if (lookup.outcome() != Outcome.STARTED) {
+                entries.asMap().remove(key, claim);
+            }
+        } else {
+            lookup = new Lookup(Outcome.STARTED, null);
+        }
+        meterRegistry.counter("mediminder.idempotency", "outcome", lookup.outcome().name().toLowerCase()).increment();
+        return lookup;
+    }
+
+    public void complete(String key, String fingerprint, StoredResponse response) {
+        entries.put(key, new Entry(fingerprint, response));
+        if (properties.isJdbcEnabled()) {
+            jdbcTemplate.update("UPDATE idempotency_keys SET status = ?, content_type = ?, body = ? WHERE id = ?",
+                    response.status(), response.contentType(), response.body(), key);
+        }
+    }
+
+    /**
+     * Releases the key without storing a response, so a retry runs the request again.
+     */
+    public void abandon(String key) {
+        entries.invalidate(key);
+        if (properties.isJdbcEnabled()) {
+            jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id = ? AND status IS NULL", key);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "PT10M", initialDelayString = "PT1M")
+    public void purgeExpired() {
+        if (!properties.isJdbcEnabled() || !leaderElectionService.isLeader()) {
+            return;
+        }
+        Instant now = Instant.now();
+        int purged = jdbcTemplate.update(
+                "DELETE FROM idempotency_keys WHERE created_at < ? OR (status IS NULL AND created_at < ?)",
+                Timestamp.from(now.minus(properties.getTtl())),
+                Timestamp.from(now.minus(IN_PROGRESS_TIMEOUT)));
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private Lookup beginInDatabase(String key, String userId, String fingerprint) {
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO idempotency_keys (id, user_id, fingerprint) VALUES (?, ?, ?) ON CONFLICT (id) DO NOTHING",
+                key, userId, fingerprint);
+        if (inserted == 1) {
+            return new Lookup(Outcome.STARTED, null);
+        }
+
+        Instant now = Instant.now();
+        List<Entry> rows = jdbcTemplate.query(
+                "SELECT fingerprint, status, content_type, body FROM idempotency_keys "
+                        + "WHERE id = ? AND created_at >= ? AND (status IS NOT NULL OR created_at >= ?)",
+                (rs, rowNum) -> new Entry(rs.getString("fingerprint"),
+                        rs.getObject("status") == null ? null : new StoredResponse(
+                                rs.getInt("status"), rs.getString("content_type"), rs.getBytes("body"))),
+                key, Timestamp.from(now.minus(properties.getTtl())), Timestamp.from(now.minus(IN_PROGRESS_TIMEOUT)));
+        if (!rows.isEmpty()) {
+            return evaluate(rows.get(0), fingerprint);
+        }
+
+        // Expired or abandoned row: take it over
+        int restarted = jdbcTemplate.update(
+                "UPDATE idempotency_keys SET fingerprint = ?, status = NULL, content_type = NULL, body = NULL, "
+                        + "created_at = CURRENT_TIMESTAMP WHERE id = ? AND (created_at < ? OR (status IS NULL AND created_at < ?))",
+                fingerprint, key,
+                Timestamp.from(now.minus(properties.getTtl())), Timestamp.from(now.minus(IN_PROGRESS_TIMEOUT)));
+        return new Lookup(restarted == 1 ? Outcome.STARTED : Outcome.IN_PROGRESS, null);
+    }
+
+    private static Lookup evaluate(Entry entry, String fingerprint) {
+        if (!entry.fingerprint().equals(fingerprint)) {
+            return new Lookup(Outcome.MISMATCH, null);
+        }
+        if (entry.response() == null) {
+            return new Lookup(Outcome.IN_PROGRESS, null);
+        }
+        return new Lookup(Outcome.REPLAY, entry.response());
+    }
+}
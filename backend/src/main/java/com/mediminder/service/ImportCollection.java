@@ -0,0 +1,190 @@
+package com.mediminder.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mediminder.config.CacheConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Describes how each per-user collection is bulk imported: the staging table
+ * layout the COPY stream is loaded into, and the single INSERT ... ON CONFLICT
+ * statement that merges the staged rows into the real table (after freeing the
+ * natural keys they take over, for collections that have one).
+ */
+public enum ImportCollection {
+
+    MEDICATIONS("medications", "medications", CacheConfig.MEDICATIONS_CACHE, List.of(), List.of(
+            new Column("name", "name", "text", null, true),
+            new Column("dosage", "dosage", "text", null, true),
+            new Column("frequency", "frequency", "text", null, true),
+            new Column("times", "times", "jsonb", "COALESCE(s.times, '[]'::jsonb)", false),
+            new Column("notes", "notes", "text", null, false))),
+
+    // One log per dose (uq_med_logs_dose)
+    MED_LOGS("med-logs", "med_logs", CacheConfig.MED_LOGS_CACHE, List.of("med_id", "date", "time"), List.of(
+            new Column("med_id", "medId", "text", null, true),
+            new Column("date", "date", "text", null, true),
+            new Column("time", "time", "text", null, true),
+            new Column("taken", "taken", "boolean", "COALESCE(s.taken, false)", false),
+            new Column("taken_at", "takenAt", "timestamp", null, false))),
+
+    APPOINTMENTS("appointments", "appointments", CacheConfig.APPOINTMENTS_CACHE, List.of(), List.of(
+            new Column("doctor_name", "doctorName", "text", null, true),
+            new Column("specialty", "specialty", "text", null, false),
+            new Column("date", "date", "text", null, true),
+            new Column("time", "time", "text", null, true),
+            new Column("location", "location", "text", null, false),
+            new Column("notes", "notes", "text", null, false),
+            new Column("status", "status", "text", "COALESCE(s.status, 'pending')", false)));
+
+    /**
+     * Time-ordered UUIDv7 for rows without an ID, in the layout
+     * {@link com.mediminder.util.IdGenerator} produces: a random UUID whose first 48 bits
+     * are replaced by the Unix time in milliseconds and whose version nibble is set to 7.
+     * CSV input is copied to the database as-is, so IDs cannot be assigned in Java.
+     */
+    static final String UUID_V7_SQL =
+            "encode(set_bit(set_bit(overlay(uuid_send(gen_random_uuid()) placing "
+                    + "substring(int8send(floor(EXTRACT(EPOCH FROM clock_timestamp()) * 1000)::bigint) from 3) "
+                    + "from 1 for 6), 52, 1), 53, 1), 'hex')::uuid::text";
+
+    private final String path;
+    private final String table;
+    private final String cacheName;
+    private final List<String> naturalKey;
+    private final List<Column> columns;
+
+    ImportCollection(String path, String table, String cacheName, List<String> naturalKey,
+                     List<Column> dataColumns) {
+        this.path = path;
+        this.table = table;
+        this.cacheName = cacheName;
+        this.naturalKey = naturalKey;
+        this.columns = new ArrayList<>();
+        this.columns.add(new Column("id", "id", "text", null, false));
+        this.columns.addAll(dataColumns);
+    }
+
+    public static Optional<ImportCollection> fromPath(String path) {
+        return Arrays.stream(values()).filter(c -> c.path.equals(path)).findFirst();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    /**
+     * Column order expected in CSV input (after the header line).
+     */
+    public String csvHeader() {
+        return columns.stream().map(Column::name).collect(Collectors.joining(","));
+    }
+
+    String stagingTable() {
+        return "import_" + table;
+    }
+
+    String createStagingTableSql() {
+        String definitions = columns.stream()
+                .map(c -> c.name() + " " + c.stagingType())
+                .collect(Collectors.joining(", "));
+        // ord preserves input order so the last duplicate of an ID wins
+        return "CREATE TEMP TABLE " + stagingTable() + " (ord BIGSERIAL, " + definitions + ") ON COMMIT DROP";
+    }
+
+    String copySql(boolean header) {
+        return "COPY " + stagingTable() + " (" + csvHeader() + ") FROM STDIN WITH (FORMAT csv"
+                + (header ? ", HEADER true" : "") + ")";
+    }
+
+    /**
+     * DELETE of the user's rows holding a natural key that a staged row takes over,
+     * taking one bind parameter (the user ID). Rows whose ID is also staged are kept,
+     * since the merge updates them in place. Empty for collections without a natural key.
+     */
+    Optional<String> freeNaturalKeySql() {
+        if (naturalKey.isEmpty()) {
+            return Optional.empty();
+        }
+        String matches = naturalKey.stream()
+                .map(k -> "t." + k + " = s." + k)
+                .collect(Collectors.joining(" AND "));
+        return Optional.of("DELETE FROM " + table + " t USING " + stagingTable() + " s "
+                + "WHERE t.user_id = ? AND " + matches + " "
+                + "AND NOT EXISTS (SELECT 1 FROM " + stagingTable() + " k WHERE k.id = t.id)");
+    }
+
+    /**
+     * INSERT ... SELECT from the staging table, taking one bind parameter (the user ID).
+     * Rows whose ID belongs to another user are left untouched by the conflict clause.
+     * Within the file the last row per ID, and then per natural key, wins.
+     */
+    String mergeSql() {
+        List<Column> dataColumns = columns.subList(1, columns.size());
+        String targetColumns = dataColumns.stream().map(Column::name).collect(Collectors.joining(", "));
+        String selectExpressions = dataColumns.stream()
+                .map(c -> c.insertExpression() != null ? c.insertExpression() : "s." + c.name())
+                .collect(Collectors.joining(", "));
+        String stagedColumns = dataColumns.stream().map(Column::name).collect(Collectors.joining(", "));
+        String requiredFilter = dataColumns.stream()
+                .filter(Column::required)
+                .map(c -> "s." + c.name() + " IS NOT NULL")
+                .collect(Collectors.joining(" AND "));
+        String updates = dataColumns.stream()
+                .map(c -> c.name() + " = EXCLUDED." + c.name())
+                .collect(Collectors.joining(", "));
+
+        String staged = "SELECT DISTINCT ON (s.id) s.* "
+                + "FROM (SELECT ord, COALESCE(NULLIF(id, ''), " + UUID_V7_SQL + ") AS id, " + stagedColumns
+                + " FROM " + stagingTable() + ") s "
+                + "WHERE " + requiredFilter + " "
+                + "ORDER BY s.id, s.ord DESC";
+        if (!naturalKey.isEmpty()) {
+            String key = naturalKey.stream().map(k -> "d." + k).collect(Collectors.joining(", "));
+            staged = "SELECT DISTINCT ON (" + key + ") d.* FROM (" + staged + ") d "
+                    + "ORDER BY " + key + ", d.ord DESC";
+        }
+
+        return "INSERT INTO " + table + " (id, user_id, " + targetColumns + ", created_at) "
+                + "SELECT s.id, ?, " + selectExpressions + ", now() "
+                + "FROM (" + staged + ") s "
+                + "ON CONFLICT (id) DO UPDATE SET " + updates + ", version = " + table + ".version + 1 "
+                + "WHERE " + table + ".user_id = EXCLUDED.user_id";
+    }
+
+    /**
+     * Renders one NDJSON object as a CSV line in {@link #csvHeader()} order.
+     * Missing and null fields become unquoted empty values, which COPY reads as NULL.
+     */
+    public String toCsvRow(JsonNode node) {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            JsonNode value = node.get(columns.get(i).jsonField());
+            if (value == null || value.isNull()) {
+                continue;
+            }
+            if (value.isBoolean() || value.isNumber()) {
+                row.append(value.asText());
+            } else {
+                String text = value.isContainerNode() ? value.toString() : value.asText();
+                row.append('"').append(text.replace("\"", "\"\"")).append('"');
+            }
+        }
+        return row.append('\n').toString();
+    }
+
+    private record Column(String name, String jsonField, String stagingType, String insertExpression,
+                          boolean required) {
+    }
+}
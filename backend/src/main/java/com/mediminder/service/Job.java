@@ -0,0 +1,13 @@
+package com.mediminder.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * A claimed job as handed to its {@link JobHandler}.
+ *
+ * @param payload  JSON text given when the job was enqueued
+ * @param attempts Including the current one
+ * @param runAt    When the job became claimable; the gap to now is its queue latency
+ */
+public record Job(long id, String queue, String payload, int attempts, int maxAttempts, LocalDateTime runAt) {
+}
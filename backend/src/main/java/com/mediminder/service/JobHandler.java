@@ -0,0 +1,19 @@
+package com.mediminder.service;
+
+/**
+ * Runs the jobs of one queue. Handlers are picked up as Spring beans; a job
+ * is marked done when {@link #handle} returns and retried with backoff when
+ * it throws.
+ *
+ * <p>Delivery is at least once: a job can run again after its worker died or
+ * overran {@code app.jobs.lock-timeout}, so handlers must be idempotent.
+ */
+public interface JobHandler {
+
+    /**
+     * Name of the queue this handler consumes
+     */
+    String queue();
+
+    void handle(Job job) throws Exception;
+}
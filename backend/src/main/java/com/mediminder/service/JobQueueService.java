@@ -0,0 +1,219 @@
+package com.mediminder.service;
+
+import com.mediminder.config.JobQueueProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durable job queue on the jobs table. Workers claim ready jobs in batches
+ * with FOR UPDATE SKIP LOCKED, so any number of instances can poll the same
+ * queue without blocking each other or claiming a job twice. A claim is a
+ * lease: it commits immediately and the handler runs outside any database
+ * transaction; leases that are never completed expire after
+ * {@code app.jobs.lock-timeout}.
+ */
+@Service
+@Slf4j
+public class JobQueueService {
+
+    private static final int MAX_ERROR_LENGTH = 4000;
+
+    private static final String ENQUEUE_SQL =
+            "INSERT INTO jobs (queue, payload, max_attempts, run_at) VALUES (?, ?::jsonb, ?, "
+                    + "CURRENT_TIMESTAMP + CAST(? AS DOUBLE PRECISION) * INTERVAL '1 millisecond') RETURNING id";
+
+    private static final String CLAIM_SQL =
+            "UPDATE jobs SET status = 'running', attempts = attempts + 1, "
+                    + "locked_at = CURRENT_TIMESTAMP, locked_by = ? "
+                    + "WHERE id IN (SELECT id FROM jobs WHERE queue = ? AND status = 'pending' "
+                    + "AND run_at <= CURRENT_TIMESTAMP ORDER BY run_at, id LIMIT ? FOR UPDATE SKIP LOCKED) "
+                    + "RETURNING id, queue, payload::text AS payload, attempts, max_attempts, run_at, locked_at";
+
+    // Only the lease holder (same attempt) may finish a job; a reclaimed job belongs to its new worker
+    private static final String COMPLETE_SQL =
+            "UPDATE jobs SET status = 'done', finished_at = CURRENT_TIMESTAMP, locked_at = NULL, locked_by = NULL "
+                    + "WHERE id = ? AND attempts = ? AND status = 'running'";
+
+    private static final String FAIL_SQL =
+            "UPDATE jobs SET status = CASE WHEN attempts >= max_attempts THEN 'failed' ELSE 'pending' END, "
+                    + "run_at = CURRENT_TIMESTAMP + CAST(? AS DOUBLE PRECISION) * INTERVAL '1 millisecond', "
+                    + "finished_at = CASE WHEN attempts >= max_attempts THEN CURRENT_TIMESTAMP END, "
+                    + "last_error = ?, locked_at = NULL, locked_by = NULL "
+                    + "WHERE id = ? AND attempts = ? AND status = 'running'";
+
+    // Cutoffs use the database clock, which locked_at and finished_at come from, not the app's
+    private static final String RECLAIM_SQL =
+            "UPDATE jobs SET status = CASE WHEN attempts >= max_attempts THEN 'failed' ELSE 'pending' END, "
+                    + "finished_at = CASE WHEN attempts >= max_attempts THEN CURRENT_TIMESTAMP END, "
+                    + "last_error = 'Lease expired', locked_at = NULL, locked_by = NULL "
+                    + "WHERE status = 'running' "
+                    + "AND locked_at < CURRENT_TIMESTAMP - CAST(? AS DOUBLE PRECISION) * INTERVAL '1 millisecond'";
+
+    private static final String PURGE_SQL =
+            "DELETE FROM jobs WHERE status IN ('done', 'failed') "
+                    + "AND finished_at < CURRENT_TIMESTAMP - CAST(? AS DOUBLE PRECISION) * INTERVAL '1 millisecond'";
+
+    private static final String STATS_SQL =
+            "SELECT queue, count(*) FILTER (WHERE status = 'pending' AND run_at <= CURRENT_TIMESTAMP) AS ready, "
+                    + "count(*) FILTER (WHERE status = 'running') AS running, "
+                    + "EXTRACT(EPOCH FROM CURRENT_TIMESTAMP - min(run_at) "
+                    + "FILTER (WHERE status = 'pending' AND run_at <= CURRENT_TIMESTAMP)) AS oldest_ready_seconds "
+                    + "FROM jobs WHERE status IN ('pending', 'running') GROUP BY queue";
+
+    private record QueueStats(long ready, long running, double oldestReadySeconds) {
+    }
+
+    private static final QueueStats EMPTY = new QueueStats(0, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobQueueProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final LeaderElectionService leaderElectionService;
+    private final String workerId;
+    private final Map<String, QueueStats> stats = new ConcurrentHashMap<>();
+
+    public JobQueueService(JdbcTemplate jdbcTemplate,
+                           JobQueueProperties properties,
+                           MeterRegistry meterRegistry,
+                           LeaderElectionService leaderElectionService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.leaderElectionService = leaderElectionService;
+        // pid@hostname
+        this.workerId = ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    /**
+     * Adds a job that is ready immediately. Runs in the caller's transaction if
+     * there is one, so a job enqueued by a save that rolls back is never run.
+     *
+     * @param payload JSON text passed to the handler as-is
+     * @return The job ID
+     */
+    public long enqueue(String queue, String payload) {
+        return enqueue(queue, payload, Duration.ZERO);
+    }
+
+    /**
+     * Adds a job that becomes ready after {@code delay}.
+     */
+    public long enqueue(String queue, String payload, Duration delay) {
+        Long id = jdbcTemplate.queryForObject(ENQUEUE_SQL, Long.class,
+                queue, payload, properties.getMaxAttempts(), delay.toMillis());
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Leases up to {@code limit} ready jobs of the queue, oldest first, skipping
+     * jobs other workers are claiming at the same moment.
+     */
+    public List<Job> claim(String queue, int limit) {
+        return jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> {
+            Timestamp runAt = rs.getTimestamp("run_at");
+            Timestamp lockedAt = rs.getTimestamp("locked_at");
+            // Both timestamps come from the database clock, so app/DB skew doesn't distort the latency
+            Timer.builder("mediminder.jobs.latency")
+                    .description("Time from a job becoming ready until a worker claimed it")
+                    .tag("queue", queue)
+                    .register(meterRegistry)
+                    .record(Duration.between(runAt.toInstant(), lockedAt.toInstant()));
+            return new Job(rs.getLong("id"), rs.getString("queue"), rs.getString("payload"),
+                    rs.getInt("attempts"), rs.getInt("max_attempts"), runAt.toLocalDateTime());
+        }, workerId, queue, limit);
+    }
+
+    public void complete(Job job) {
+        if (jdbcTemplate.update(COMPLETE_SQL, job.id(), job.attempts()) == 0) {
+            log.warn("Job {} finished after its lease expired; it may run again", job.id());
+        }
+    }
+
+    /**
+     * Schedules a retry after {@link #backoff}, or marks the job failed once it
+     * has used all its attempts.
+     */
+    public void fail(Job job, Throwable error) {
+        String message = String.valueOf(error);
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+        jdbcTemplate.update(FAIL_SQL, backoff(job.attempts()).toMillis(), message, job.id(), job.attempts());
+    }
+
+    /**
+     * Delay before retrying after the given (1-based) failed attempt:
+     * {@code backoff-base * 2^(attempt - 1)}, capped at {@code backoff-max}.
+     */
+    Duration backoff(int attempt) {
+        int doublings = Math.min(Math.max(attempt - 1, 0), 30);
+        long millis = properties.getBackoffBase().toMillis() << doublings;
+        long max = properties.getBackoffMax().toMillis();
+        return Duration.ofMillis(millis <= 0 || millis > max ? max : millis);
+    }
+
+    @Scheduled(fixedDelayString = "PT1M", initialDelayString = "PT1M")
+    public void reclaimExpiredLeases() {
+        if (!leaderElectionService.isLeader()) {
+            return;
+        }
+        int reclaimed = jdbcTemplate.update(RECLAIM_SQL, properties.getLockTimeout().toMillis());
+        if (reclaimed > 0) {
+            log.warn("Reclaimed {} jobs whose worker did not finish them within {}",
+                    reclaimed, properties.getLockTimeout());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT5M")
+    public void purgeFinished() {
+        if (!leaderElectionService.isLeader()) {
+            return;
+        }
+        int purged = jdbcTemplate.update(PURGE_SQL, properties.getRetention().toMillis());
+        if (purged > 0) {
+            log.debug("Purged {} finished jobs", purged);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "PT15S")
+    public void refreshMetrics() {
+        Map<String, QueueStats> current = new ConcurrentHashMap<>();
+        jdbcTemplate.query(STATS_SQL, rs -> {
+            current.put(rs.getString("queue"), new QueueStats(rs.getLong("ready"), rs.getLong("running"),
+                    rs.getDouble("oldest_ready_seconds")));
+        });
+        // Queues that went idle report zero rather than their last value
+        stats.replaceAll((queue, previous) -> current.getOrDefault(queue, EMPTY));
+        current.forEach((queue, value) -> {
+            if (stats.put(queue, value) == null) {
+                registerGauges(queue);
+            }
+        });
+    }
+
+    private void registerGauges(String queue) {
+        Gauge.builder("mediminder.jobs.depth", stats, s -> s.getOrDefault(queue, EMPTY).ready())
+                .description("Jobs ready to run and not yet claimed")
+                .tag("queue", queue)
+                .register(meterRegistry);
+        Gauge.builder("mediminder.jobs.running", stats, s -> s.getOrDefault(queue, EMPTY).running())
+                .tag("queue", queue)
+                .register(meterRegistry);
+        Gauge.builder("mediminder.jobs.oldest.ready.seconds", stats,
+                        s -> s.getOrDefault(queue, EMPTY).oldestReadySeconds())
+                .tag("queue", queue)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,148 @@
+package com.mediminder.service;
+
+import com.mediminder.config.JobQueueProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Polls the job queue for every registered {@link JobHandler} and runs the
+ * claimed jobs off the request threads. Each queue runs at most
+ * {@code app.jobs.concurrency.<queue>} jobs at once on this instance; a poll
+ * only claims as many jobs as there are free slots, so claimed jobs never
+ * wait in memory while other instances could run them.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.jobs", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class JobWorker {
+
+    private final JobQueueService jobQueueService;
+    private final JobQueueProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, JobHandler> handlers;
+    private final Map<String, AtomicInteger> inFlight;
+    private final ExecutorService executor;
+    private volatile boolean stopping = false;
+
+    @Autowired
+    public JobWorker(JobQueueService jobQueueService,
+                     ObjectProvider<JobHandler> handlers,
+                     JobQueueProperties properties,
+                     MeterRegistry meterRegistry) {
+        // Thread count is bounded by the sum of the queue concurrency limits
+        this(jobQueueService, handlers.orderedStream().toList(), properties, meterRegistry,
+                Executors.newCachedThreadPool(jobThreadFactory()));
+    }
+
+    JobWorker(JobQueueService jobQueueService,
+              List<JobHandler> handlers,
+              JobQueueProperties properties,
+              MeterRegistry meterRegistry,
+              ExecutorService executor) {
+        this.jobQueueService = jobQueueService;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.handlers = handlers.stream().collect(Collectors.toMap(JobHandler::queue, Function.identity()));
+        this.inFlight = this.handlers.keySet().stream()
+                .collect(Collectors.toMap(Function.identity(), queue -> new AtomicInteger()));
+        this.executor = executor;
+        if (!this.handlers.isEmpty()) {
+            log.info("Job worker polling queues {}", this.handlers.keySet());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.poll-interval:PT1S}")
+    public void poll() {
+        if (stopping) {
+            return;
+        }
+        handlers.forEach((queue, handler) -> {
+            AtomicInteger running = inFlight.get(queue);
+            int free = properties.concurrencyFor(queue) - running.get();
+            if (free <= 0) {
+                return;
+            }
+            List<Job> jobs;
+            try {
+                jobs = jobQueueService.claim(queue, Math.min(free, properties.getBatchSize()));
+            } catch (RuntimeException e) {
+                log.warn("Claiming jobs from queue {} failed: {}", queue, e.getMessage());
+                return;
+            }
+            for (Job job : jobs) {
+                running.incrementAndGet();
+                executor.execute(() -> run(handler, job, running));
+            }
+        });
+    }
+
+    private void run(JobHandler handler, Job job, AtomicInteger running) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "done";
+        try {
+            Exception failure = null;
+            try {
+                handler.handle(job);
+            } catch (Exception e) {
+                failure = e;
+            }
+            if (failure == null) {
+                jobQueueService.complete(job);
+            } else {
+                outcome = job.attempts() >= job.maxAttempts() ? "failed" : "retry";
+                log.warn("Job {} on queue {} failed (attempt {}/{}): {}",
+                        job.id(), job.queue(), job.attempts(), job.maxAttempts(), failure.toString());
+                jobQueueService.fail(job, failure);
+            }
+        } catch (RuntimeException e) {
+            // The lease expires and the job is retried
+            log.error("Recording the result of job {} failed", job.id(), e);
+        } finally {
+            running.decrementAndGet();
+            sample.stop(Timer.builder("mediminder.jobs.duration")
+                    .tag("queue", job.queue())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Stops claiming and gives running jobs a chance to finish; jobs still
+     * running afterwards are picked up again once their lease expires.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stopping = true;
+        executor.shutdown();
+        if (!executor.awaitTermination(20, TimeUnit.SECONDS)) {
+            log.warn("Job worker stopped with jobs still running");
+            executor.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory jobThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "job-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.mediminder.service;
+
+import com.mediminder.config.LeaderElectionProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports this instance's election role under /actuator/health. Followers are
+ * healthy; a lost lock session is reported as UNKNOWN rather than DOWN, since
+ * the instance still serves requests and the database indicator covers outages.
+ */
+@Component("leaderElection")
+@RequiredArgsConstructor
+public class LeaderElectionHealthIndicator implements HealthIndicator {
+
+    private final LeaderElectionService leaderElectionService;
+    private final LeaderElectionProperties properties;
+
+    @Override
+    public Health health() {
+        if (!properties.isEnabled()) {
+            return Health.up().withDetail("role", "leader").withDetail("election", "disabled").build();
+        }
+        Health.Builder builder = leaderElectionService.isConnected() ? Health.up() : Health.unknown();
+        return builder
+                .withDetail("role", leaderElectionService.isLeader() ? "leader" : "follower")
+                .withDetail("lock", properties.getLockName())
+                .build();
+    }
+}
@@ -0,0 +1,159 @@
+package com.mediminder.service;
+
+import com.mediminder.config.LeaderElectionProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Elects one instance of the cluster as leader for scheduled work that must
+ * run once per cluster rather than once per instance; such tasks return early
+ * unless {@link #isLeader()}.
+ *
+ * The leader holds a session-level PostgreSQL advisory lock on a dedicated
+ * connection, opened outside the pool so it neither takes a pool slot nor
+ * trips leak detection. The lock lives exactly as long as that session: when
+ * the leader shuts down it unlocks, and when it dies PostgreSQL ends the
+ * session (TCP keepalives are tightened for this). Followers retry
+ * pg_try_advisory_lock every {@code renew-interval}, so one takes over within
+ * about one interval. A leader that can no longer reach its session steps down
+ * at its next check, which with these keepalives is normally well before
+ * PostgreSQL frees the lock for another instance.
+ */
+@Service
+@Slf4j
+public class LeaderElectionService {
+
+    /**
+     * First key of the two-key advisory lock, distinct from
+     * {@link UserWriteLockService#ADVISORY_NAMESPACE}
+     */
+    static final int ADVISORY_NAMESPACE = 0x4D4D0002;
+
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_lock(?, hashtext(?))";
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(?, hashtext(?))";
+
+    private final DataSource lockDataSource;
+    private final LeaderElectionProperties properties;
+    private Connection connection;
+    private volatile boolean leader;
+    private volatile boolean connected;
+
+    public LeaderElectionService(DataSourceProperties dataSourceProperties,
+                                 LeaderElectionProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.lockDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+        this.properties = properties;
+        this.leader = !properties.isEnabled();
+        Gauge.builder("mediminder.leader", this, s -> s.leader ? 1 : 0)
+                .description("1 while this instance runs cluster-wide scheduled work")
+                .register(meterRegistry);
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * Whether the lock session is open; always false when election is disabled.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Scheduled(fixedDelayString = "${app.leader-election.renew-interval:PT2S}")
+    public synchronized void renew() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            if (connection == null || !connection.isValid(properties.getValidationTimeoutSeconds())) {
+                // A lost session means a lost lock, even if we can't tell yet
+                setLeader(false);
+                reconnect();
+            }
+            if (!leader) {
+                setLeader(tryLock());
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Leader election check failed: {}", e.getMessage());
+            setLeader(false);
+            closeQuietly();
+        }
+    }
+
+    /**
+     * Gives up leadership right away so another instance takes over at its next check.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (leader && connection != null) {
+            try (PreparedStatement statement = connection.prepareStatement(UNLOCK_SQL)) {
+                statement.setInt(1, ADVISORY_NAMESPACE);
+                statement.setString(2, properties.getLockName());
+                statement.execute();
+            } catch (SQLException e) {
+                log.debug("Releasing leader lock failed, closing the session releases it: {}", e.getMessage());
+            }
+        }
+        setLeader(false);
+        closeQuietly();
+    }
+
+    private void reconnect() throws SQLException {
+        closeQuietly();
+        connection = lockDataSource.getConnection();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            int idle = properties.getKeepaliveSeconds();
+            statement.execute("SET application_name = 'mediminder-leader-election'");
+            statement.execute("SET tcp_keepalives_idle = " + idle);
+            statement.execute("SET tcp_keepalives_interval = " + Math.max(1, idle / 2));
+            statement.execute("SET tcp_keepalives_count = 3");
+        }
+        connected = true;
+    }
+
+    private boolean tryLock() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(TRY_LOCK_SQL)) {
+            statement.setInt(1, ADVISORY_NAMESPACE);
+            statement.setString(2, properties.getLockName());
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void setLeader(boolean nowLeader) {
+        if (nowLeader != leader) {
+            log.info(nowLeader ? "Elected leader for scheduled work" : "No longer leader for scheduled work");
+        }
+        leader = nowLeader;
+    }
+
+    private void closeQuietly() {
+        connected = false;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("Closing leader election connection failed: {}", e.getMessage());
+            }
+            connection = null;
+        }
+    }
+}
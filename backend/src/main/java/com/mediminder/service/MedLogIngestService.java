@@ -0,0 +1,310 @@
+package com.mediminder.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediminder.config.CacheConfig;
+import com.mediminder.config.IngestProperties;
+import com.mediminder.dto.ImportResultDTO;
+import com.mediminder.dto.MedLogDTO;
+import com.mediminder.dto.VersionConflictDTO;
+import com.mediminder.entity.MedLog;
+import com.mediminder.entity.User;
+import com.mediminder.exception.BadRequestException;
+import com.mediminder.exception.PayloadTooLargeException;
+import com.mediminder.exception.VersionConflictException;
+import com.mediminder.repository.MedLogRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming variant of {@link MedLogService#saveMedLogs}: the JSON array is
+ * read one log at a time and written in chunks of {@code app.ingest.chunk-size},
+ * with the persistence context cleared after each chunk, so memory does not
+ * grow with the request. The same one-log-per-dose rules apply across chunks,
+ * tracked in per-transaction temp tables: {@code ingest_keep_ids} holds the ID
+ * and dose of every log written so far, and drives the final delete of logs
+ * missing from the request; {@code ingest_displaced} holds stored logs moved
+ * out of a dose slot taken by an earlier chunk, so one whose ID only comes in
+ * a later chunk can still be version-checked and restored. Version conflicts
+ * are collected across all chunks and roll the whole save back.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MedLogIngestService {
+
+    private static final String DOSE_KEY = "(m.med_id || '|' || m.date || '|' || m.time)";
+
+    private static final String CREATE_KEEP_TABLE_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS ingest_keep_ids "
+                    + "(id VARCHAR(50) PRIMARY KEY, dose TEXT NOT NULL, inserted BOOLEAN NOT NULL) ON COMMIT DROP";
+    private static final String CREATE_DISPLACED_TABLE_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS ingest_displaced (LIKE med_logs, PRIMARY KEY (id)) ON COMMIT DROP";
+    private static final String KEEP_IDS_SQL =
+            "INSERT INTO ingest_keep_ids (id, dose, inserted) SELECT * FROM unnest(?, ?, ?) "
+                    + "ON CONFLICT (id) DO UPDATE SET dose = EXCLUDED.dose, inserted = EXCLUDED.inserted";
+    private static final String FIND_DISPLACED_SQL =
+            "SELECT id, med_id, date, time, taken, taken_at, version, created_at "
+                    + "FROM ingest_displaced WHERE id = ANY(?)";
+    private static final String RESTORE_DISPLACED_SQL = "DELETE FROM ingest_displaced WHERE id = ANY(?)";
+    /**
+     * A later log for a dose an earlier chunk already wrote replaces it
+     */
+    private static final String DELETE_REPLACED_SQL =
+            "WITH replaced AS (DELETE FROM med_logs m USING ingest_keep_ids k "
+                    + "WHERE m.user_id = ? AND k.id = m.id AND m.id <> ALL(?) AND k.dose = ANY(?) RETURNING m.id) "
+                    + "DELETE FROM ingest_keep_ids k USING replaced r WHERE k.id = r.id";
+    /**
+     * Frees the dose slots the chunk writes to; stored logs not written yet are set
+     * aside rather than deleted, since their IDs may still come in a later chunk
+     */
+    private static final String DISPLACE_SQL =
+            "WITH displaced AS (DELETE FROM med_logs m WHERE m.user_id = ? AND m.id <> ALL(?) "
+                    + "AND " + DOSE_KEY + " = ANY(?) "
+                    + "AND NOT EXISTS (SELECT 1 FROM ingest_keep_ids k WHERE k.id = m.id) RETURNING m.*) "
+                    + "INSERT INTO ingest_displaced SELECT * FROM displaced";
+    private static final String DELETE_UNKEPT_SQL =
+            "DELETE FROM med_logs m WHERE m.user_id = ? "
+                    + "AND NOT EXISTS (SELECT 1 FROM ingest_keep_ids k WHERE k.id = m.id)";
+    /**
+     * The same dose logged on another device under a different ID keeps the stored
+     * log's ID, as in {@link MedLogService#saveMedLogs}; only known once the whole
+     * request is read, since until then the stored ID may still be sent for another dose
+     */
+    private static final String ADOPT_DISPLACED_IDS_SQL =
+            "UPDATE med_logs m SET id = d.id, version = d.version + 1, created_at = d.created_at "
+                    + "FROM ingest_displaced d, ingest_keep_ids k "
+                    + "WHERE m.user_id = ? AND k.id = m.id AND k.inserted "
+                    + "AND d.med_id = m.med_id AND d.date = m.date AND d.time = m.time";
+
+    private final MedLogRepository medLogRepository;
+    private final AuthService authService;
+    private final CollectionVersionService collectionVersionService;
+    private final UserWriteLockService userWriteLockService;
+    private final OutboxService outboxService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final IngestProperties properties;
+
+    /**
+     * Replaces the user's med logs with the JSON array read from {@code body}.
+     */
+    @CacheEvict(value = CacheConfig.MED_LOGS_CACHE, key = "#userId")
+    @Transactional
+    public ImportResultDTO saveMedLogs(String userId, InputStream body) throws IOException {
+        long start = System.nanoTime();
+        userWriteLockService.lock(userId);
+        authService.getUserById(userId);
+        jdbcTemplate.execute(CREATE_KEEP_TABLE_SQL);
+        jdbcTemplate.execute(CREATE_DISPLACED_TABLE_SQL);
+
+        List<VersionConflictDTO> conflicts = new ArrayList<>();
+        List<MedLogDTO> chunk = new ArrayList<>(properties.getChunkSize());
+        long received = 0;
+        long written = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BadRequestException("Expected a JSON array of med logs");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new BadRequestException("Unexpected end of med log array");
+                }
+                if (++received > properties.getMaxItems()) {
+                    throw new PayloadTooLargeException(
+                            "At most " + properties.getMaxItems() + " med logs can be saved at once");
+                }
+                chunk.add(validate(objectMapper.readValue(parser, MedLogDTO.class), received - 1));
+                if (chunk.size() == properties.getChunkSize()) {
+                    written += writeChunk(userId, chunk, conflicts);
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Malformed med log JSON: " + e.getOriginalMessage());
+        }
+        written += writeChunk(userId, chunk, conflicts);
+
+        if (!conflicts.isEmpty()) {
+            throw new VersionConflictException(conflicts);
+        }
+        int deleted = jdbcTemplate.update(DELETE_UNKEPT_SQL, userId);
+        jdbcTemplate.update(ADOPT_DISPLACED_IDS_SQL, userId);
+        outboxService.record(userId, OutboxService.MED_LOGS, OutboxService.REPLACED, Map.of("count", written));
+        collectionVersionService.bump(userId, CacheConfig.MED_LOGS_CACHE);
+
+        long durationMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Streamed {} med logs for user {} ({} removed) in {} ms", written, userId, deleted, durationMs);
+        return ImportResultDTO.builder()
+                .collection("med-logs")
+                .rowsReceived(received)
+                .rowsImported(written)
+                .rowsSkipped(received - written)
+                .durationMs(durationMs)
+                .rowsPerSecond(written * 1000 / durationMs)
+                .build();
+    }
+
+    private MedLogDTO validate(MedLogDTO dto, long index) {
+        Set<ConstraintViolation<MedLogDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            String details = violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            throw new BadRequestException("Med log " + index + ": " + details);
+        }
+        return dto;
+    }
+
+    /**
+     * @return The number of logs written (conflicting ones are not), less the ones
+     * written by earlier chunks that this chunk replaced
+     */
+    private int writeChunk(String userId, List<MedLogDTO> chunk, List<VersionConflictDTO> conflicts) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        Collection<MedLogDTO> incoming = MedLogService.lastPerDose(chunk);
+        List<String> ids = incoming.stream()
+                .map(MedLogDTO::getId)
+                .filter(id -> id != null && !id.isEmpty())
+                .toList();
+        Map<String, MedLog> existing = ids.isEmpty() ? Map.of()
+                : medLogRepository.findByUserIdAndIdIn(userId, ids).stream()
+                        .collect(Collectors.toMap(MedLog::getId, Function.identity()));
+        List<String> missing = ids.stream().filter(id -> !existing.containsKey(id)).toList();
+        Map<String, MedLog> displaced = missing.isEmpty() ? Map.of()
+                : findDisplaced(missing).stream().collect(Collectors.toMap(MedLog::getId, Function.identity()));
+
+        User user = entityManager.getReference(User.class, userId);
+        List<MedLog> toInsert = new ArrayList<>();
+        List<MedLog> toMove = new ArrayList<>();
+        List<MedLog> writtenLogs = new ArrayList<>(incoming.size());
+        // Logs updated in place keep their slot; every other write needs its dose free first
+        List<String> claimedDoses = new ArrayList<>();
+        for (MedLogDTO dto : incoming) {
+            MedLog current = dto.getId() == null ? null
+                    : existing.getOrDefault(dto.getId(), displaced.get(dto.getId()));
+            if (dto.getVersion() != null && (current == null || !dto.getVersion().equals(current.getVersion()))) {
+                conflicts.add(VersionConflictDTO.builder()
+                        .id(dto.getId())
+                        .clientVersion(dto.getVersion())
+                        .serverVersion(current != null ? current.getVersion() : null)
+                        .current(current != null ? MedLogService.toDTO(current) : null)
+                        .build());
+            } else if (current != null && (displaced.containsKey(current.getId())
+                    || !MedLogService.doseKey(current).equals(MedLogService.doseKey(dto)))) {
+                MedLog moved = MedLogService.moveTo(current, dto, user);
+                toMove.add(moved);
+                writtenLogs.add(moved);
+                claimedDoses.add(MedLogService.doseKey(moved));
+            } else if (current != null) {
+                MedLogService.applyChanges(current, dto);
+                writtenLogs.add(current);
+            } else {
+                MedLog created = MedLogService.toEntity(dto, user);
+                toInsert.add(created);
+                writtenLogs.add(created);
+                claimedDoses.add(MedLogService.doseKey(created));
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            // The save will be rolled back; keep reading only to report every conflict
+            entityManager.clear();
+            return writtenLogs.size();
+        }
+
+        List<String> writtenIds = writtenLogs.stream().map(MedLog::getId).toList();
+        int replaced = 0;
+        if (!claimedDoses.isEmpty()) {
+            replaced = updateWithArrays(DELETE_REPLACED_SQL, userId, writtenIds, claimedDoses);
+            updateWithArrays(DISPLACE_SQL, userId, writtenIds, claimedDoses);
+        }
+        if (!displaced.isEmpty()) {
+            updateWithArrays(RESTORE_DISPLACED_SQL, null, displaced.keySet(), null);
+        }
+        // Hibernate flushes inserts before updates, so moved logs are rewritten first
+        if (!toMove.isEmpty()) {
+            medLogRepository.moveLogs(userId, toMove);
+        }
+        medLogRepository.saveAll(toInsert);
+        entityManager.flush();
+        entityManager.clear();
+        keep(writtenLogs, toInsert.stream().map(MedLog::getId).collect(Collectors.toSet()));
+        return writtenLogs.size() - replaced;
+    }
+
+    private List<MedLog> findDisplaced(Collection<String> ids) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_DISPLACED_SQL);
+            statement.setArray(1, connection.createArrayOf("text", ids.toArray()));
+            return statement;
+        }, (rs, rowNum) -> {
+            Timestamp takenAt = rs.getTimestamp("taken_at");
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            return MedLog.builder()
+                    .id(rs.getString("id"))
+                    .medId(rs.getString("med_id"))
+                    .date(rs.getString("date"))
+                    .time(rs.getString("time"))
+                    .taken(rs.getBoolean("taken"))
+                    .takenAt(takenAt != null ? takenAt.toLocalDateTime() : null)
+                    .version(rs.getLong("version"))
+                    .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                    .build();
+        });
+    }
+
+    private void keep(List<MedLog> writtenLogs, Set<String> insertedIds) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(KEEP_IDS_SQL);
+            statement.setArray(1, connection.createArrayOf("text",
+                    writtenLogs.stream().map(MedLog::getId).toArray()));
+            statement.setArray(2, connection.createArrayOf("text",
+                    writtenLogs.stream().map(MedLogService::doseKey).toArray()));
+            statement.setArray(3, connection.createArrayOf("boolean",
+                    writtenLogs.stream().map(m -> insertedIds.contains(m.getId())).toArray()));
+            return statement;
+        });
+    }
+
+    private int updateWithArrays(String sql, String userId, Collection<String> first, Collection<String> second) {
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            int index = 1;
+            if (userId != null) {
+                statement.setString(index++, userId);
+            }
+            statement.setArray(index++, connection.createArrayOf("text", first.toArray()));
+            if (second != null) {
+                statement.setArray(index, connection.createArrayOf("text", second.toArray()));
+            }
+            return statement;
+        });
+    }
+}
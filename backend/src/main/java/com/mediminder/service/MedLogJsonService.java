@@ -0,0 +1,71 @@
+package com.mediminder.service;
+
+import com.mediminder.config.DbJsonProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a user's med logs as a JSON array rendered by PostgreSQL. Each row
+ * arrives as ready-made JSON text (same field names and order as
+ * {@link com.mediminder.dto.MedLogDTO}) and is copied to the response as-is,
+ * so no entities, DTOs or Jackson serialization are involved. Rows are read
+ * through a cursor rather than aggregated with json_agg, which keeps a long
+ * history from being built up as one value on either side.
+ */
+@Service
+public class MedLogJsonService {
+
+    static final String MED_LOGS_JSON_SQL =
+            "SELECT json_build_object('id', id, 'medId', med_id, 'date', date, 'time', time, 'taken', taken, "
+                    + "'takenAt', taken_at, 'version', version)::text FROM med_logs WHERE user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public MedLogJsonService(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             DbJsonProperties properties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // PostgreSQL only honours the fetch size (cursor mode) inside a transaction
+        this.jdbcTemplate.setFetchSize(properties.getFetchSize());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setTimeout(properties.getTimeoutSeconds());
+    }
+
+    /**
+     * Writes the JSON array to the given stream without closing it.
+     *
+     * @return The number of med logs written
+     */
+    public long writeMedLogs(String userId, OutputStream out) throws IOException {
+        long[] count = {0};
+        try {
+            out.write('[');
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(MED_LOGS_JSON_SQL, rs -> {
+                try {
+                    if (count[0]++ > 0) {
+                        out.write(',');
+                    }
+                    out.write(rs.getString(1).getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, userId));
+            out.write(']');
+        } catch (UncheckedIOException e) {
+            // Usually the client went away mid-response
+            throw e.getCause();
+        }
+        out.flush();
+        return count[0];
+    }
+}
@@ -1,23 +1,39 @@
 package com.mediminder.service;
 
 import com.mediminder.config.CacheConfig;
+import com.mediminder.dto.CompactMedLogList;
 import com.mediminder.dto.MedLogDTO;
+import com.mediminder.dto.VersionConflictDTO;
 import com.mediminder.entity.MedLog;
 import com.mediminder.entity.User;
+import com.mediminder.exception.VersionConflictException;
 import com.mediminder.repository.MedLogRepository;
+import com.mediminder.repository.MedLogRow;
 import com.mediminder.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,56 +43,186 @@ public class MedLogService {
 
     private final MedLogRepository medLogRepository;
     private final AuthService authService;
+    private final CollectionVersionService collectionVersionService;
+    private final CacheLoadCoalescer cacheLoadCoalescer;
+    private final UserWriteLockService userWriteLockService;
+    private final OutboxService outboxService;
+    private final CacheManager cacheManager;
 
     @Cacheable(value = CacheConfig.MED_LOGS_CACHE, key = "#userId")
     public List<MedLogDTO> getMedLogs(String userId) {
-        return medLogRepository.findByUserId(userId).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return cacheLoadCoalescer.load(CacheConfig.MED_LOGS_CACHE, userId, () -> CompactMedLogList.of(
+                medLogRepository.findRowsByUserId(userId).stream()
+                        .map(MedLogService::toDTO)
+                        .collect(Collectors.toList())));
     }
 
+    @Transactional(readOnly = true)
     public Page<MedLogDTO> getMedLogs(String userId, Pageable pageable) {
-        return medLogRepository.findByUserId(userId, pageable)
-                .map(this::toDTO);
+        return medLogRepository.findRowsByUserId(userId, pageable)
+                .map(MedLogService::toDTO);
     }
 
     @CacheEvict(value = CacheConfig.MED_LOGS_CACHE, key = "#userId")
     @Transactional
     public List<MedLogDTO> saveMedLogs(String userId, List<MedLogDTO> logs) {
+        userWriteLockService.lock(userId);
         User user = authService.getUserById(userId);
+        List<MedLog> stored = medLogRepository.findByUserId(userId);
+        Map<String, MedLog> existing = stored.stream()
+                .collect(Collectors.toMap(MedLog::getId, Function.identity()));
+        Map<String, MedLog> existingByDose = stored.stream()
+                .collect(Collectors.toMap(MedLogService::doseKey, Function.identity(), (first, second) -> first));
 
-        // Get existing IDs
-        List<String> newIds = logs.stream()
+        Collection<MedLogDTO> incoming = lastPerDose(logs);
+        Set<String> claimedIds = incoming.stream()
                 .map(MedLogDTO::getId)
                 .filter(id -> id != null && !id.isEmpty())
-                .toList();
+                .collect(Collectors.toSet());
+
+        // Check every item first so a conflicting save changes nothing
+        List<VersionConflictDTO> conflicts = new ArrayList<>();
+        List<MedLog> savedLogs = new ArrayList<>(incoming.size());
+        List<MedLog> toInsert = new ArrayList<>();
+        List<MedLog> toMove = new ArrayList<>();
+        Set<String> keepIds = new LinkedHashSet<>(claimedIds);
+        for (MedLogDTO dto : incoming) {
+            MedLog current = dto.getId() != null ? existing.get(dto.getId()) : null;
+            if (current == null && dto.getVersion() == null) {
+                // The same dose logged on another device under a different ID: keep the stored log's ID
+                MedLog sameDose = existingByDose.get(doseKey(dto));
+                if (sameDose != null && !claimedIds.contains(sameDose.getId())) {
+                    current = sameDose;
+                    keepIds.add(sameDose.getId());
+                }
+            }
+            if (dto.getVersion() != null && (current == null || !dto.getVersion().equals(current.getVersion()))) {
+                conflicts.add(VersionConflictDTO.builder()
+                        .id(dto.getId())
+                        .clientVersion(dto.getVersion())
+                        .serverVersion(current != null ? current.getVersion() : null)
+                        .current(current != null ? toDTO(current) : null)
+                        .build());
+            } else if (current != null && !doseKey(current).equals(doseKey(dto))) {
+                MedLog moved = moveTo(current, dto, user);
+                toMove.add(moved);
+                savedLogs.add(moved);
+            } else if (current != null) {
+                applyChanges(current, dto);
+                savedLogs.add(current);
+            } else {
+                MedLog created = toEntity(dto, user);
+                toInsert.add(created);
+                savedLogs.add(created);
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new VersionConflictException(conflicts);
+        }
 
         // Delete logs not in the new list
-        if (!newIds.isEmpty()) {
-            medLogRepository.deleteByUserIdAndIdNotIn(userId, newIds);
+        if (!keepIds.isEmpty()) {
+            medLogRepository.deleteByUserIdExcept(userId, List.copyOf(keepIds));
         } else {
             medLogRepository.deleteByUserId(userId);
         }
 
-        // Save all logs
-        List<MedLog> entitiesToSave = logs.stream()
-                .map(dto -> toEntity(dto, user))
-                .toList();
+        // Hibernate flushes inserts before updates, so a log moving to another dose is rewritten
+        // here first; otherwise an insert taking its old slot would hit uq_med_logs_dose
+        if (!toMove.isEmpty()) {
+            medLogRepository.moveLogs(userId, toMove);
+        }
+
+        // Updated logs are managed and flushed by dirty checking; flushing now assigns their new versions
+        medLogRepository.saveAll(toInsert);
+        medLogRepository.flush();
 
-        List<MedLog> savedLogs = medLogRepository.saveAll(entitiesToSave);
+        outboxService.record(userId, OutboxService.MED_LOGS, OutboxService.REPLACED, Map.of("count", savedLogs.size()));
+        collectionVersionService.bump(userId, CacheConfig.MED_LOGS_CACHE);
 
         return savedLogs.stream()
-                .map(this::toDTO)
+                .map(MedLogService::toDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Records one dose with a single upsert on (user, medId, date, time), without
+     * reading the rest of the list. Takes the user's write lock, so a concurrent
+     * full-list save cannot delete the dose or collide with it. A cached list is
+     * patched instead of evicted.
+     */
+    @Transactional
+    public MedLogDTO saveDose(String userId, MedLogDTO dose) {
+        userWriteLockService.lock(userId);
+        // The upsert only resolves conflicts on the dose; an ID already used by another
+        // row (a different dose) would hit the primary key, so such a dose gets a new ID
+        String id = dose.getId() != null && !medLogRepository.existsById(dose.getId())
+                ? dose.getId() : IdGenerator.generateId();
+        MedLogRow row = medLogRepository.upsertDose(userId,
+                id,
+                dose.getMedId(),
+                dose.getDate(),
+                dose.getTime(),
+                Boolean.TRUE.equals(dose.getTaken()),
+                dose.getTakenAt() != null ? LocalDateTime.parse(dose.getTakenAt(), DateTimeFormatter.ISO_DATE_TIME)
+                        : null);
+        MedLogDTO saved = toDTO(row);
+        outboxService.record(userId, OutboxService.MED_LOGS, OutboxService.UPSERTED, Map.of(
+                "id", saved.getId(), "medId", saved.getMedId(), "date", saved.getDate(), "time", saved.getTime(),
+                "taken", Boolean.TRUE.equals(saved.getTaken())));
+
+        // Registered before the version bump, so the cache is patched before the new ETag is served
+        afterCommit(() -> patchCachedLogs(userId, saved));
+        collectionVersionService.bump(userId, CacheConfig.MED_LOGS_CACHE);
+        return saved;
+    }
+
     @CacheEvict(value = CacheConfig.MED_LOGS_CACHE, key = "#userId")
     @Transactional
     public void deleteAllMedLogs(String userId) {
+        userWriteLockService.lock(userId);
         medLogRepository.deleteByUserId(userId);
+        outboxService.record(userId, OutboxService.MED_LOGS, OutboxService.CLEARED, Map.of());
+        collectionVersionService.bump(userId, CacheConfig.MED_LOGS_CACHE);
+    }
+
+    private void patchCachedLogs(String userId, MedLogDTO saved) {
+        Cache cache = cacheManager.getCache(CacheConfig.MED_LOGS_CACHE);
+        if (cache instanceof CaffeineCache caffeineCache) {
+            // Atomic per key, so concurrent doses cannot lose each other's patch; null evicts
+            caffeineCache.getNativeCache().asMap().computeIfPresent(userId, (key, cached) ->
+                    cached instanceof CompactMedLogList compact ? compact.withLog(saved) : null);
+        } else if (cache != null) {
+            cache.evict(userId);
+        }
     }
 
-    private MedLogDTO toDTO(MedLog medLog) {
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    static MedLogDTO toDTO(MedLogRow row) {
+        return MedLogDTO.builder()
+                .id(row.id())
+                .medId(row.medId())
+                .date(row.date())
+                .time(row.time())
+                .taken(row.taken())
+                .takenAt(row.takenAt() != null ? row.takenAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null)
+                .version(row.version())
+                .build();
+    }
+
+    static MedLogDTO toDTO(MedLog medLog) {
         return MedLogDTO.builder()
                 .id(medLog.getId())
                 .medId(medLog.getMedId())
@@ -85,10 +231,11 @@ public class MedLogService {
                 .taken(medLog.getTaken())
                 .takenAt(medLog.getTakenAt() != null ? medLog.getTakenAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
                         : null)
+                .version(medLog.getVersion())
                 .build();
     }
 
-    private MedLog toEntity(MedLogDTO dto, User user) {
+    static MedLog toEntity(MedLogDTO dto, User user) {
         return MedLog.builder()
                 .id(dto.getId() != null ? dto.getId() : IdGenerator.generateId())
                 .user(user)
@@ -101,4 +248,44 @@ public class MedLogService {
                         : null)
                 .build();
     }
+
+    static String doseKey(MedLog medLog) {
+        return medLog.getMedId() + "|" + medLog.getDate() + "|" + medLog.getTime();
+    }
+
+    static String doseKey(MedLogDTO dto) {
+        return dto.getMedId() + "|" + dto.getDate() + "|" + dto.getTime();
+    }
+
+    /**
+     * One log per dose: a later item for the same (medId, date, time) replaces an earlier one
+     */
+    static Collection<MedLogDTO> lastPerDose(Collection<MedLogDTO> logs) {
+        return logs.stream()
+                .collect(Collectors.toMap(MedLogService::doseKey, Function.identity(), (first, second) -> second,
+                        LinkedHashMap::new))
+                .values();
+    }
+
+    /**
+     * The row that replaces {@code current} when it moves to the dose of {@code dto},
+     * to be written with {@link MedLogRepository#moveLogs}
+     */
+    static MedLog moveTo(MedLog current, MedLogDTO dto, User user) {
+        MedLog moved = toEntity(dto, user);
+        moved.setId(current.getId());
+        moved.setVersion(current.getVersion() != null ? current.getVersion() + 1 : 0L);
+        moved.setCreatedAt(current.getCreatedAt());
+        return moved;
+    }
+
+    static void applyChanges(MedLog medLog, MedLogDTO dto) {
+        medLog.setMedId(dto.getMedId());
+        medLog.setDate(dto.getDate());
+        medLog.setTime(dto.getTime());
+        medLog.setTaken(dto.getTaken() != null ? dto.getTaken() : false);
+        medLog.setTakenAt(dto.getTakenAt() != null
+                ? LocalDateTime.parse(dto.getTakenAt(), DateTimeFormatter.ISO_DATE_TIME)
+                : null);
+    }
 }
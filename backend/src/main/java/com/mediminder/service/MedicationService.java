@@ -2,9 +2,12 @@ package com.mediminder.service;
 
 import com.mediminder.config.CacheConfig;
 import com.mediminder.dto.MedicationDTO;
+import com.mediminder.dto.VersionConflictDTO;
 import com.mediminder.entity.Medication;
 import com.mediminder.entity.User;
+import com.mediminder.exception.VersionConflictException;
 import com.mediminder.repository.MedicationRepository;
+import com.mediminder.repository.MedicationRow;
 import com.mediminder.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,7 +18,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,43 +31,76 @@ public class MedicationService {
 
     private final MedicationRepository medicationRepository;
     private final AuthService authService;
+    private final CollectionVersionService collectionVersionService;
+    private final CacheLoadCoalescer cacheLoadCoalescer;
+    private final UserWriteLockService userWriteLockService;
+    private final OutboxService outboxService;
 
     @Cacheable(value = CacheConfig.MEDICATIONS_CACHE, key = "#userId")
     public List<MedicationDTO> getMedications(String userId) {
-        return medicationRepository.findByUserId(userId).stream()
+        return cacheLoadCoalescer.load(CacheConfig.MEDICATIONS_CACHE, userId, () -> medicationRepository.findRowsByUserId(userId).stream()
                 .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
+    @Transactional(readOnly = true)
     public Page<MedicationDTO> getMedications(String userId, Pageable pageable) {
-        return medicationRepository.findByUserId(userId, pageable)
+        return medicationRepository.findRowsByUserId(userId, pageable)
                 .map(this::toDTO);
     }
 
     @CacheEvict(value = CacheConfig.MEDICATIONS_CACHE, key = "#userId")
     @Transactional
     public List<MedicationDTO> saveMedications(String userId, List<MedicationDTO> medications) {
+        userWriteLockService.lock(userId);
         User user = authService.getUserById(userId);
+        Map<String, Medication> existing = medicationRepository.findByUserId(userId).stream()
+                .collect(Collectors.toMap(Medication::getId, Function.identity()));
+
+        // Check every item first so a conflicting save changes nothing
+        List<VersionConflictDTO> conflicts = new ArrayList<>();
+        List<Medication> savedMedications = new ArrayList<>(medications.size());
+        List<Medication> toInsert = new ArrayList<>();
+        for (MedicationDTO dto : medications) {
+            Medication current = dto.getId() != null ? existing.get(dto.getId()) : null;
+            if (dto.getVersion() != null && (current == null || !dto.getVersion().equals(current.getVersion()))) {
+                conflicts.add(VersionConflictDTO.builder()
+                        .id(dto.getId())
+                        .clientVersion(dto.getVersion())
+                        .serverVersion(current != null ? current.getVersion() : null)
+                        .current(current != null ? toDTO(current) : null)
+                        .build());
+            } else if (current != null) {
+                applyChanges(current, dto);
+                savedMedications.add(current);
+            } else {
+                Medication created = toEntity(dto, user);
+                toInsert.add(created);
+                savedMedications.add(created);
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new VersionConflictException(conflicts);
+        }
 
-        // Get existing IDs
+        // Delete medications not in the new list
         List<String> newIds = medications.stream()
                 .map(MedicationDTO::getId)
                 .filter(id -> id != null && !id.isEmpty())
                 .toList();
-
-        // Delete medications not in the new list
         if (!newIds.isEmpty()) {
-            medicationRepository.deleteByUserIdAndIdNotIn(userId, newIds);
+            medicationRepository.deleteByUserIdExcept(userId, newIds);
         } else {
             medicationRepository.deleteByUserId(userId);
         }
 
-        // Save all medications
-        List<Medication> entitiesToSave = medications.stream()
-                .map(dto -> toEntity(dto, user))
-                .toList();
+        // Updated medications are managed and flushed by dirty checking; flushing now assigns their new versions
+        medicationRepository.saveAll(toInsert);
+        medicationRepository.flush();
 
-        List<Medication> savedMedications = medicationRepository.saveAll(entitiesToSave);
+        outboxService.record(userId, OutboxService.MEDICATIONS, OutboxService.REPLACED,
+                Map.of("count", savedMedications.size()));
+        collectionVersionService.bump(userId, CacheConfig.MEDICATIONS_CACHE);
 
         return savedMedications.stream()
                 .map(this::toDTO)
@@ -71,7 +110,22 @@ public class MedicationService {
     @CacheEvict(value = CacheConfig.MEDICATIONS_CACHE, key = "#userId")
     @Transactional
     public void deleteAllMedications(String userId) {
+        userWriteLockService.lock(userId);
         medicationRepository.deleteByUserId(userId);
+        outboxService.record(userId, OutboxService.MEDICATIONS, OutboxService.CLEARED, Map.of());
+        collectionVersionService.bump(userId, CacheConfig.MEDICATIONS_CACHE);
+    }
+
+    private MedicationDTO toDTO(MedicationRow row) {
+        return MedicationDTO.builder()
+                .id(row.id())
+                .name(row.name())
+                .dosage(row.dosage())
+                .frequency(row.frequency())
+                .times(row.times())
+                .notes(row.notes())
+                .version(row.version())
+                .build();
     }
 
     private MedicationDTO toDTO(Medication medication) {
@@ -82,6 +136,7 @@ public class MedicationService {
                 .frequency(medication.getFrequency())
                 .times(medication.getTimes())
                 .notes(medication.getNotes())
+                .version(medication.getVersion())
                 .build();
     }
 
@@ -96,4 +151,12 @@ public class MedicationService {
                 .notes(dto.getNotes())
                 .build();
     }
+
+    private void applyChanges(Medication medication, MedicationDTO dto) {
+        medication.setName(dto.getName());
+        medication.setDosage(dto.getDosage());
+        medication.setFrequency(dto.getFrequency());
+        medication.setTimes(dto.getTimes());
+        medication.setNotes(dto.getNotes());
+    }
 }
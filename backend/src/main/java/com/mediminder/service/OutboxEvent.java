@@ -0,0 +1,19 @@
+package com.mediminder.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change to one of a user's collections, as recorded in the outbox.
+ * Events are published to {@link OutboxSink}s and, in process, as Spring
+ * application events.
+ *
+ * @param id         Unique per event; consumers drop duplicates by remembering the IDs they saw.
+ *                   IDs are assigned at insert, not commit, so a smaller ID can be relayed after
+ *                   a larger one and must not be treated as a high-water mark
+ * @param collection One of the {@code OutboxService} collection names
+ * @param type       One of the {@code OutboxService} event types
+ * @param payload    Compact JSON describing the change
+ */
+public record OutboxEvent(long id, String userId, String collection, String type, String payload,
+                          LocalDateTime createdAt) {
+}
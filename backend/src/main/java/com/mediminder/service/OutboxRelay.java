@@ -0,0 +1,204 @@
+package com.mediminder.service;
+
+import com.mediminder.config.OutboxProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Moves recorded outbox events to the {@link OutboxSink}s in batches, off the
+ * request path. Runs on the elected leader only, so batches are not relayed
+ * concurrently, but events are not guaranteed to go out in commit order: an
+ * event from a transaction that commits late can follow events with larger IDs.
+ * Rows are still claimed with FOR UPDATE SKIP LOCKED so an old and a new leader
+ * overlapping during failover never relay the same batch twice. A batch is
+ * marked published in the transaction that claimed it, after every sink
+ * accepted it; if a sink fails the transaction rolls back, and each event of
+ * the batch is charged an attempt and retried after an exponential backoff.
+ * An event that failed before is retried on its own, so one event a sink keeps
+ * rejecting cannot hold back the others; after {@code app.outbox.max-attempts}
+ * it is dead-lettered ({@code failed_at} set) and kept, but no longer relayed.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.outbox", name = "relay-enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OutboxRelay {
+
+    private static final String CLAIM_SQL =
+            "SELECT id, user_id, collection, type, payload::text AS payload, created_at, attempts, "
+                    + "EXTRACT(EPOCH FROM CURRENT_TIMESTAMP - created_at) * 1000 AS age_ms "
+                    + "FROM outbox_events WHERE published_at IS NULL AND failed_at IS NULL "
+                    + "AND (next_attempt_at IS NULL OR next_attempt_at <= CURRENT_TIMESTAMP) "
+                    + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String MARK_PUBLISHED_SQL =
+            "UPDATE outbox_events SET published_at = CURRENT_TIMESTAMP WHERE id = ANY(?)";
+
+    private static final String RECORD_FAILURE_SQL =
+            "UPDATE outbox_events SET attempts = attempts + 1, last_error = LEFT(?, 1000), "
+                    + "next_attempt_at = CURRENT_TIMESTAMP + LEAST(CAST(? AS DOUBLE PRECISION) * POWER(2, attempts), "
+                    + "CAST(? AS DOUBLE PRECISION)) * INTERVAL '1 millisecond', "
+                    + "failed_at = CASE WHEN attempts + 1 >= ? THEN CURRENT_TIMESTAMP END "
+                    + "WHERE id = ANY(?) AND published_at IS NULL RETURNING id, failed_at IS NOT NULL AS dead";
+
+    private static final String PURGE_PUBLISHED_SQL =
+            "DELETE FROM outbox_events "
+                    + "WHERE published_at < CURRENT_TIMESTAMP - CAST(? AS DOUBLE PRECISION) * INTERVAL '1 millisecond'";
+
+    private record Claimed(OutboxEvent event, int attempts, long ageMs) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OutboxSink> sinks;
+    private final OutboxProperties properties;
+    private final LeaderElectionService leaderElectionService;
+    private final MeterRegistry meterRegistry;
+    private final Timer lagTimer;
+    private final Counter publishedCounter;
+    private final Counter deadLetteredCounter;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       ObjectProvider<OutboxSink> sinks,
+                       OutboxProperties properties,
+                       LeaderElectionService leaderElectionService,
+                       MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(properties.getBatchTimeoutSeconds());
+        this.sinks = sinks.orderedStream().toList();
+        this.properties = properties;
+        this.leaderElectionService = leaderElectionService;
+        this.meterRegistry = meterRegistry;
+        this.lagTimer = Timer.builder("mediminder.outbox.lag")
+                .description("Time from recording an event until it was relayed")
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("mediminder.outbox.published")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("mediminder.outbox.dead.lettered")
+                .description("Events no longer relayed after failing max-attempts times")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:PT1S}")
+    public void relay() {
+        if (!leaderElectionService.isLeader()) {
+            return;
+        }
+        for (int i = 0; i < properties.getMaxBatchesPerRun(); i++) {
+            if (relayBatch() < properties.getBatchSize()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The number of events relayed; 0 if the batch failed
+     */
+    int relayBatch() {
+        List<Long> attempted = new ArrayList<>();
+        try {
+            List<Claimed> relayed = transactionTemplate.execute(status -> {
+                List<Claimed> claimed = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new Claimed(
+                        new OutboxEvent(rs.getLong("id"), rs.getString("user_id"), rs.getString("collection"),
+                                rs.getString("type"), rs.getString("payload"),
+                                rs.getTimestamp("created_at").toLocalDateTime()),
+                        rs.getInt("attempts"), rs.getLong("age_ms")), properties.getBatchSize());
+                if (claimed.isEmpty()) {
+                    return claimed;
+                }
+                if (claimed.get(0).attempts() > 0) {
+                    // Failed before, possibly because of another event in its batch: retry it alone
+                    claimed = claimed.subList(0, 1);
+                }
+                claimed.forEach(c -> attempted.add(c.event().id()));
+                List<OutboxEvent> events = claimed.stream().map(Claimed::event).toList();
+                for (OutboxSink sink : sinks) {
+                    publish(sink, events);
+                }
+                Long[] ids = events.stream().map(OutboxEvent::id).toArray(Long[]::new);
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(MARK_PUBLISHED_SQL);
+                    statement.setArray(1, connection.createArrayOf("bigint", ids));
+                    return statement;
+                });
+                return claimed;
+            });
+            if (relayed == null) {
+                return 0;
+            }
+            // Only once committed, so retried batches aren't counted twice
+            relayed.forEach(c -> lagTimer.record(Duration.ofMillis(c.ageMs())));
+            publishedCounter.increment(relayed.size());
+            return relayed.size();
+        } catch (RuntimeException e) {
+            log.warn("Relaying {} outbox events failed, retrying after a backoff: {}", attempted.size(),
+                    e.getMessage());
+            if (!attempted.isEmpty()) {
+                recordFailure(attempted, e);
+            }
+            return 0;
+        }
+    }
+
+    private void recordFailure(List<Long> ids, RuntimeException failure) {
+        try {
+            List<Long> deadLettered = transactionTemplate.execute(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(RECORD_FAILURE_SQL);
+                statement.setString(1, String.valueOf(failure.getMessage()));
+                statement.setLong(2, properties.getRetryBackoff().toMillis());
+                statement.setLong(3, properties.getMaxRetryBackoff().toMillis());
+                statement.setInt(4, properties.getMaxAttempts());
+                statement.setArray(5, connection.createArrayOf("bigint", ids.toArray()));
+                return statement;
+            }, (rs, rowNum) -> rs.getBoolean("dead") ? rs.getLong("id") : null))
+                    .stream()
+                    .filter(Objects::nonNull)
+                    .toList();
+            if (!deadLettered.isEmpty()) {
+                deadLetteredCounter.increment(deadLettered.size());
+                log.error("Outbox events {} failed {} times and are no longer relayed", deadLettered,
+                        properties.getMaxAttempts());
+            }
+        } catch (RuntimeException e) {
+            // Not charged this time; the events are retried on the next run
+            log.warn("Recording the failed outbox attempt failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT5M")
+    public void purgePublished() {
+        if (!leaderElectionService.isLeader()) {
+            return;
+        }
+        // Cutoff on the database clock, which also set published_at
+        int purged = jdbcTemplate.update(PURGE_PUBLISHED_SQL, properties.getRetention().toMillis());
+        if (purged > 0) {
+            log.debug("Purged {} published outbox events", purged);
+        }
+    }
+
+    private void publish(OutboxSink sink, List<OutboxEvent> events) {
+        try {
+            sink.publish(events);
+        } catch (Exception e) {
+            meterRegistry.counter("mediminder.outbox.sink.failures", "sink", sink.name()).increment();
+            throw new IllegalStateException("Outbox sink " + sink.name() + " failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.mediminder.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Records change events in the outbox_events table as part of the write that
+ * causes them: the event exists if and only if the change committed. The
+ * {@link OutboxRelay} later hands recorded events to the {@link OutboxSink}s.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    public static final String MEDICATIONS = "medications";
+    public static final String MED_LOGS = "med-logs";
+    public static final String APPOINTMENTS = "appointments";
+
+    /** The user's whole collection was replaced by a bulk save */
+    public static final String REPLACED = "replaced";
+    /** One item was inserted or updated */
+    public static final String UPSERTED = "upserted";
+    /** All of the user's items were deleted */
+    public static final String CLEARED = "cleared";
+    /** Items were merged in by a bulk import */
+    public static final String IMPORTED = "imported";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_events (user_id, collection, type, payload) VALUES (?, ?, ?, ?::jsonb)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Must be called inside the transaction making the change.
+     *
+     * @param payload Small summary of the change (counts, or the single item); not the full collection
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String userId, String collection, String type, Map<String, ?> payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable", e);
+        }
+        jdbcTemplate.update(INSERT_SQL, userId, collection, type, json);
+    }
+}
@@ -0,0 +1,22 @@
+package com.mediminder.service;
+
+import java.util.List;
+
+/**
+ * Destination for relayed outbox events, e.g. a message broker. Sinks are
+ * picked up as Spring beans; a batch is only marked published once every
+ * sink accepted it, and is offered again (to every sink) if one throws, so
+ * delivery is at least once and sinks must tolerate duplicates.
+ */
+public interface OutboxSink {
+
+    /**
+     * Name used in logs and metrics
+     */
+    String name();
+
+    /**
+     * @param events Ordered by ID within the batch; not ordered across batches by commit time
+     */
+    void publish(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,30 @@
+package com.mediminder.service;
+
+import com.mediminder.dto.BootstrapDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Loads everything the client needs at app start in one call.
+ */
+@Service
+@RequiredArgsConstructor
+public class SyncService {
+
+    private final MedicationService medicationService;
+    private final MedLogService medLogService;
+    private final AppointmentService appointmentService;
+
+    /**
+     * Goes through the collection services, so warm collections come from their
+     * caches without touching the pool; cold ones are each loaded in their own
+     * short read-only transaction.
+     */
+    public BootstrapDTO bootstrap(String userId) {
+        return BootstrapDTO.builder()
+                .medications(medicationService.getMedications(userId))
+                .medLogs(medLogService.getMedLogs(userId))
+                .appointments(appointmentService.getAppointments(userId))
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.mediminder.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mediminder.config.WriteLockProperties;
+import com.mediminder.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes writes per user for the duration of the current transaction, so
+ * two devices saving the same full list cannot interleave their delete and
+ * insert steps. Different users proceed in parallel.
+ *
+ * An in-JVM lock per user is taken first; it queues writers on this instance
+ * without holding database locks, and a long upload by one user never delays
+ * another. Locks are weakly held, so they disappear once no transaction holds
+ * or waits for them. With {@code app.write-lock.advisory} a
+ * PostgreSQL advisory transaction lock then covers other instances. Both are
+ * released when the transaction completes.
+ *
+ * The caller's transaction has already begun, so a waiting writer holds its
+ * pooled connection for the whole wait. {@code app.write-lock.timeout-ms}
+ * bounds both waits together: the advisory lock is taken under a
+ * transaction-local {@code lock_timeout} of whatever is left of it.
+ */
+@Service
+@Slf4j
+public class UserWriteLockService {
+
+    /**
+     * First key of the two-key advisory lock, so user locks cannot collide with
+     * other advisory locks taken by the application
+     */
+    static final int ADVISORY_NAMESPACE = 0x4D4D0001;
+
+    private static final String ADVISORY_LOCK_SQL = "SELECT pg_advisory_xact_lock(?, hashtext(?))";
+    private static final String RESET_LOCK_TIMEOUT_SQL = "SET LOCAL lock_timeout TO DEFAULT";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WriteLockProperties properties;
+    private final Cache<String, ReentrantLock> locks = Caffeine.newBuilder().weakValues().build();
+    private final Timer localWaitTimer;
+    private final Timer advisoryWaitTimer;
+    private final Counter timeoutCounter;
+
+    public UserWriteLockService(JdbcTemplate jdbcTemplate,
+                                WriteLockProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.localWaitTimer = Timer.builder("mediminder.write.lock.wait")
+                .tag("lock", "local")
+                .register(meterRegistry);
+        this.advisoryWaitTimer = Timer.builder("mediminder.write.lock.wait")
+                .tag("lock", "advisory")
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("mediminder.write.lock.timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Blocks until this transaction holds the write lock for the user.
+     *
+     * @throws IllegalStateException if called outside a transaction
+     * @throws ServiceUnavailableException if the lock is not obtained in time
+     */
+    public void lock(String userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("User write lock requires an active transaction");
+        }
+
+        // Referenced until afterCompletion, so the weakly held lock cannot be collected meanwhile
+        ReentrantLock userLock = locks.get(userId, id -> new ReentrantLock());
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = userLock.tryLock(properties.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        localWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            throw timedOut(userId);
+        }
+
+        // afterCompletion runs on this thread for commit and rollback alike
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                userLock.unlock();
+            }
+        });
+
+        if (properties.isAdvisory()) {
+            long advisoryStart = System.nanoTime();
+            long remainingMs = properties.getTimeoutMs() - TimeUnit.NANOSECONDS.toMillis(advisoryStart - start);
+            jdbcTemplate.execute("SET LOCAL lock_timeout = " + Math.max(1, remainingMs));
+            try {
+                jdbcTemplate.query(ADVISORY_LOCK_SQL, rs -> { }, ADVISORY_NAMESPACE, userId);
+            } catch (CannotAcquireLockException e) {
+                // SQLSTATE 55P03: lock_timeout expired; the transaction is aborted and rolls back
+                throw timedOut(userId);
+            } finally {
+                advisoryWaitTimer.record(System.nanoTime() - advisoryStart, TimeUnit.NANOSECONDS);
+            }
+            // Later statements of the transaction wait for locks as usual
+            jdbcTemplate.execute(RESET_LOCK_TIMEOUT_SQL);
+        }
+    }
+
+    private ServiceUnavailableException timedOut(String userId) {
+        timeoutCounter.increment();
+        log.warn("Timed out waiting for write lock of user {}", userId);
+        return new ServiceUnavailableException("Another save for this account is in progress, please retry",
+                properties.getRetryAfterSeconds());
+    }
+}
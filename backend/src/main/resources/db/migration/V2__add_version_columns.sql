@@ -0,0 +1,8 @@
+-- ============================================
+-- MediMinder – Flyway V2
+-- Optimistic locking: per-row version counters
+-- ============================================
+
+ALTER TABLE medications ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE med_logs ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE appointments ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
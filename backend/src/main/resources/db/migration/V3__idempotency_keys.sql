@@ -0,0 +1,16 @@
+-- ============================================
+-- MediMinder – Flyway V3
+-- Stored responses for Idempotency-Key replays (used when app.idempotency.jdbc-enabled)
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id VARCHAR(64) PRIMARY KEY,          -- SHA-256 of user, path and client key
+    user_id VARCHAR(36) NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    fingerprint VARCHAR(64) NOT NULL,    -- SHA-256 of the request body
+    status INTEGER,                      -- NULL while the first request is still running
+    content_type VARCHAR(255),
+    body BYTEA,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys(created_at);
@@ -0,0 +1,19 @@
+-- ============================================
+-- MediMinder – Flyway V4
+-- One log per dose: unique (user_id, med_id, date, time) for single-dose upserts
+-- ============================================
+
+-- Keep the most recently changed row of any duplicates
+DELETE FROM med_logs m
+USING med_logs d
+WHERE m.user_id = d.user_id
+  AND m.med_id = d.med_id
+  AND m.date = d.date
+  AND m.time = d.time
+  AND (m.version, COALESCE(m.created_at, TIMESTAMP 'epoch'), m.id)
+    < (d.version, COALESCE(d.created_at, TIMESTAMP 'epoch'), d.id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_med_logs_dose ON med_logs(user_id, med_id, date, time);
+
+-- user_id lookups use the leading column of the unique index
+DROP INDEX IF EXISTS idx_med_logs_user_id;
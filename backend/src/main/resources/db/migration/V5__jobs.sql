@@ -0,0 +1,26 @@
+-- ============================================
+-- MediMinder – Flyway V5
+-- Durable background job queue, polled by workers with FOR UPDATE SKIP LOCKED
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS jobs (
+    id BIGSERIAL PRIMARY KEY,
+    queue VARCHAR(50) NOT NULL,
+    payload JSONB NOT NULL DEFAULT '{}'::jsonb,
+    status VARCHAR(20) NOT NULL DEFAULT 'pending',  -- pending, running, done, failed
+    attempts INTEGER NOT NULL DEFAULT 0,            -- incremented when a worker claims the job
+    max_attempts INTEGER NOT NULL,
+    run_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,  -- not claimed before this (retry backoff)
+    locked_at TIMESTAMP,
+    locked_by VARCHAR(100),
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+-- Claiming scans only ready rows, in order
+CREATE INDEX IF NOT EXISTS idx_jobs_ready ON jobs(queue, run_at, id) WHERE status = 'pending';
+-- Finding leases of workers that died
+CREATE INDEX IF NOT EXISTS idx_jobs_running ON jobs(locked_at) WHERE status = 'running';
+-- Purging old finished jobs
+CREATE INDEX IF NOT EXISTS idx_jobs_finished ON jobs(finished_at) WHERE status IN ('done', 'failed');
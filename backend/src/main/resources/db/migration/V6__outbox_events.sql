@@ -0,0 +1,19 @@
+-- ============================================
+-- MediMinder – Flyway V6
+-- Transactional outbox: change events written in the same transaction as the change
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    user_id VARCHAR(36) NOT NULL,        -- no FK: events outlive a deleted user until relayed
+    collection VARCHAR(50) NOT NULL,     -- medications, med-logs, appointments
+    type VARCHAR(20) NOT NULL,           -- replaced, upserted, cleared, imported
+    payload JSONB NOT NULL DEFAULT '{}'::jsonb,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at TIMESTAMP              -- NULL until the relay has handed the event to every sink
+);
+
+-- The relay reads only unpublished events, in order
+CREATE INDEX IF NOT EXISTS idx_outbox_events_unpublished ON outbox_events(id) WHERE published_at IS NULL;
+-- Purging old published events
+CREATE INDEX IF NOT EXISTS idx_outbox_events_published_at ON outbox_events(published_at) WHERE published_at IS NOT NULL;
@@ -0,0 +1,14 @@
+-- ============================================
+-- MediMinder – Flyway V7
+-- Outbox retries: failed relay attempts back off, and events that keep failing are set aside
+-- ============================================
+
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP;  -- NULL: relay on the next run
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS last_error TEXT;
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS failed_at TIMESTAMP;        -- dead-lettered: no longer relayed
+
+-- The relay reads only events still to be relayed
+DROP INDEX IF EXISTS idx_outbox_events_unpublished;
+CREATE INDEX IF NOT EXISTS idx_outbox_events_pending ON outbox_events(id)
+    WHERE published_at IS NULL AND failed_at IS NULL;
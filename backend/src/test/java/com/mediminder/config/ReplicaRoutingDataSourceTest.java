@@ -0,0 +1,148 @@
+package com.mediminder.config;
+
+import com.mediminder.repository.MedLogRepository;
+import com.mediminder.repository.MedLogRow;
+import com.mediminder.security.UserPrincipal;
+import com.mediminder.service.CacheLoadCoalescer;
+import com.mediminder.service.CollectionChangedEvent;
+import com.mediminder.service.CollectionVersionService;
+import com.mediminder.service.MedLogService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica; each
+ * holds a one-row table naming itself, and the replica a lag value to report.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private ReplicaLagMonitor lagMonitor;
+    private ReplicaStickiness stickiness;
+    private JdbcTemplate appJdbc;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("CREATE TABLE replica_lag (seconds DOUBLE)");
+        replicaJdbc.update("INSERT INTO replica_lag VALUES (0)");
+
+        ReplicaDataSourceProperties properties = new ReplicaDataSourceProperties();
+        properties.setLagQuery("SELECT seconds FROM replica_lag");
+        properties.setMaxLag(Duration.ofSeconds(5));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        lagMonitor = new ReplicaLagMonitor(replica, properties, meterRegistry);
+        lagMonitor.check();
+        stickiness = new ReplicaStickiness(Duration.ofSeconds(10));
+
+        DataSource dataSource = ReplicaDataSourceConfig.routingDataSource(
+                primary, replica, lagMonitor, stickiness, meterRegistry);
+        appJdbc = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primaryJdbc.execute("DROP ALL OBJECTS");
+        replicaJdbc.execute("DROP ALL OBJECTS");
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("should serve read-only transactions from the replica")
+    void readOnlyUsesReplica() {
+        assertThat(lagMonitor.isHealthy()).isTrue();
+        assertThat(serverIn(true)).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("should keep read-write transactions on the primary")
+    void readWriteUsesPrimary() {
+        assertThat(serverIn(false)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("should fall back to the primary while the replica lags or is unreachable")
+    void lagFallsBackToPrimary() {
+        replicaJdbc.update("UPDATE replica_lag SET seconds = 30");
+        lagMonitor.check();
+        assertThat(lagMonitor.isHealthy()).isFalse();
+        assertThat(serverIn(true)).isEqualTo("primary");
+
+        replicaJdbc.update("UPDATE replica_lag SET seconds = 1");
+        lagMonitor.check();
+        assertThat(serverIn(true)).isEqualTo("replica");
+
+        replicaJdbc.execute("DROP TABLE replica_lag");
+        lagMonitor.check();
+        assertThat(serverIn(true)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("should read a user's own writes from the primary")
+    void stickyAfterWrite() {
+        authenticate("user-123");
+        stickiness.onCollectionChanged(new CollectionChangedEvent("user-123", CacheConfig.MED_LOGS_CACHE));
+        assertThat(serverIn(true)).isEqualTo("primary");
+
+        authenticate("user-456");
+        assertThat(serverIn(true)).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("should serve a cached list load through the service from the replica")
+    void serviceListReadUsesReplica() {
+        MedLogRepository repository = mock(MedLogRepository.class);
+        // The row's medId reports which database answered the query
+        when(repository.findRowsByUserId("user-123")).thenAnswer(invocation -> List.of(new MedLogRow("log-1",
+                appJdbc.queryForObject("SELECT name FROM server", String.class), "2026-02-23", "08:00",
+                true, null, 0L)));
+        CollectionVersionService versions = new CollectionVersionService();
+        CacheLoadCoalescer coalescer = new CacheLoadCoalescer(new SimpleMeterRegistry(), versions,
+                transactionManager);
+        MedLogService service = new MedLogService(repository, null, versions, coalescer, null, null, null);
+
+        assertThat(service.getMedLogs("user-123").get(0).getMedId()).isEqualTo("replica");
+    }
+
+    private String serverIn(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> appJdbc.queryForObject("SELECT name FROM server", String.class));
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE server (name VARCHAR(20))");
+        jdbc.update("INSERT INTO server VALUES (?)", name);
+        return dataSource;
+    }
+
+    private static void authenticate(String userId) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(userId, userId + "@example.com"), null, List.of()));
+    }
+}
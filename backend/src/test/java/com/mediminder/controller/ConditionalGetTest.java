@@ -0,0 +1,70 @@
+package com.mediminder.controller;
+
+import org.apache.coyote.CompressionConfig;
+import org.apache.coyote.Request;
+import org.apache.coyote.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ConditionalGetTest {
+
+    private static final String VERSION_TAG = "\"3f-1a\"";
+
+    @Test
+    @DisplayName("should answer a matching If-None-Match with 304 without loading the body")
+    void notModified() {
+        String etag = respond(new MockHttpServletRequest("GET", "/v1/med-logs"), new AtomicInteger())
+                .getHeaders().getETag();
+        AtomicInteger loads = new AtomicInteger();
+        MockHttpServletRequest revalidate = new MockHttpServletRequest("GET", "/v1/med-logs");
+        revalidate.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+
+        ResponseEntity<List<String>> response = respond(revalidate, loads);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("should issue weak ETags so Tomcat still gzips the list")
+    void compressible() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/med-logs");
+        request.addHeader(HttpHeaders.ACCEPT, "application/json");
+        String etag = respond(request, new AtomicInteger()).getHeaders().getETag();
+
+        // Same checks Tomcat runs with server.compression.* before compressing a response
+        CompressionConfig compression = new CompressionConfig();
+        compression.setCompression("on");
+        compression.setCompressibleMimeType("application/json");
+        compression.setCompressionMinSize(2048);
+        Request coyoteRequest = new Request();
+        coyoteRequest.getMimeHeaders().addValue("Accept-Encoding").setString("gzip, deflate, br");
+        Response coyoteResponse = new Response();
+        coyoteResponse.setContentType("application/json");
+        coyoteResponse.getMimeHeaders().addValue("ETag").setString(etag);
+
+        assertThat(etag).startsWith("W/\"");
+        assertThat(compression.useCompression(coyoteRequest, coyoteResponse)).isTrue();
+        assertThat(coyoteResponse.getMimeHeaders().getHeader("Content-Encoding")).isEqualTo("gzip");
+    }
+
+    private static ResponseEntity<List<String>> respond(MockHttpServletRequest request, AtomicInteger loads) {
+        ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+        return ConditionalGet.respond(webRequest, VERSION_TAG, () -> {
+            loads.incrementAndGet();
+            return List.of("log-1");
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package com.mediminder.controller;
+
+import com.mediminder.config.CacheConfig;
+import com.mediminder.config.DbJsonProperties;
+import com.mediminder.security.UserPrincipal;
+import com.mediminder.service.CollectionVersionService;
+import com.mediminder.service.MedLogIngestService;
+import com.mediminder.service.MedLogJsonService;
+import com.mediminder.service.MedLogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MedLogControllerTest {
+
+    private static final UserPrincipal PRINCIPAL = new UserPrincipal("user-123", "user@example.com");
+
+    @Mock
+    private MedLogService medLogService;
+
+    @Mock
+    private CollectionVersionService collectionVersionService;
+
+    @Mock
+    private MedLogJsonService medLogJsonService;
+
+    @Mock
+    private MedLogIngestService medLogIngestService;
+
+    private DbJsonProperties dbJsonProperties;
+    private MedLogController controller;
+
+    @BeforeEach
+    void setUp() {
+        dbJsonProperties = new DbJsonProperties();
+        dbJsonProperties.setEnabled(true);
+        controller = new MedLogController(medLogService, collectionVersionService, medLogJsonService,
+                medLogIngestService, dbJsonProperties);
+        when(collectionVersionService.etag("user-123", CacheConfig.MED_LOGS_CACHE)).thenReturn("\"3f-1a\"");
+    }
+
+    @Test
+    @DisplayName("should stream the database-rendered JSON with an ETag")
+    void streamsJson() throws Exception {
+        ResponseEntity<?> response = controller.getMedLogsJson(PRINCIPAL, jsonRequest(null));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getHeaders().getETag()).startsWith("W/\"3f-1a");
+        verifyNoInteractions(medLogJsonService);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+        verify(medLogJsonService).writeMedLogs("user-123", out);
+        verifyNoInteractions(medLogService);
+    }
+
+    @Test
+    @DisplayName("should answer a matching If-None-Match with 304 without querying")
+    void notModified() {
+        String etag = controller.getMedLogsJson(PRINCIPAL, jsonRequest(null)).getHeaders().getETag();
+
+        ResponseEntity<?> response = controller.getMedLogsJson(PRINCIPAL, jsonRequest(etag));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+        verifyNoInteractions(medLogJsonService, medLogService);
+    }
+
+    @Test
+    @DisplayName("should serve the cached DTOs when database rendering is disabled")
+    void fallsBackToDtos() {
+        dbJsonProperties.setEnabled(false);
+
+        ResponseEntity<?> response = controller.getMedLogsJson(PRINCIPAL, jsonRequest(null));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(medLogService).getMedLogs("user-123");
+        verifyNoInteractions(medLogJsonService);
+    }
+
+    private static ServletWebRequest jsonRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/med-logs");
+        request.addHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,97 @@
+package com.mediminder.dto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CompactMedLogListTest {
+
+    @Test
+    @DisplayName("should decode every log exactly as it was encoded")
+    void roundTrips() {
+        List<MedLogDTO> logs = List.of(
+                log("log-1", "med-1", "2026-02-23", "08:00", true, "2026-02-23T08:30:00", 3L),
+                log("lz9x2kq4abcd", "med-2", "1999-12-31", "23:59", false, null, 0L),
+                log("é-ünïcode", "med-1", "2026-02-24", "00:00", null, "2026-02-24T00:00:00.123456", null));
+
+        List<MedLogDTO> compact = CompactMedLogList.of(logs);
+
+        assertThat(compact).isInstanceOf(CompactMedLogList.class).isEqualTo(logs);
+        assertThat(compact.get(2).getTaken()).isNull();
+        assertThatThrownBy(() -> compact.add(logs.get(0))).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("should keep the original list when a log would not round-trip")
+    void fallsBackForNonCanonicalValues() {
+        List<MedLogDTO> oddTime = List.of(log("log-1", "med-1", "2026-02-23", "8:00", true, null, 1L));
+        List<MedLogDTO> oddDate = List.of(log("log-1", "med-1", "2026-2-23", "08:00", true, null, 1L));
+        List<MedLogDTO> oddTakenAt = List.of(log("log-1", "med-1", "2026-02-23", "08:00", true,
+                "2026-02-23T08:30", 1L));
+
+        assertThat(CompactMedLogList.of(oddTime)).isSameAs(oddTime);
+        assertThat(CompactMedLogList.of(oddDate)).isSameAs(oddDate);
+        assertThat(CompactMedLogList.of(oddTakenAt)).isSameAs(oddTakenAt);
+    }
+
+    @Test
+    @DisplayName("should replace the log for the same dose or append a new one")
+    void withLog() {
+        MedLogDTO morning = log("log-1", "med-1", "2026-02-23", "08:00", false, null, 0L);
+        MedLogDTO evening = log("log-2", "med-1", "2026-02-23", "20:00", false, null, 0L);
+        CompactMedLogList list = (CompactMedLogList) CompactMedLogList.of(List.of(morning, evening));
+
+        MedLogDTO takenMorning = log("log-1b", "med-1", "2026-02-23", "08:00", true, "2026-02-23T08:05:00", 1L);
+        MedLogDTO newMed = log("log-3", "med-9", "2026-02-23", "12:00", true, "2026-02-23T12:00:00", 0L);
+
+        assertThat(list.withLog(takenMorning)).containsExactly(takenMorning, evening);
+        assertThat(list.withLog(newMed)).containsExactly(morning, evening, newMed);
+        assertThat(list.withLog(newMed).withLog(takenMorning)).containsExactly(takenMorning, evening, newMed);
+        assertThat(list).containsExactly(morning, evening);
+        assertThat(list.withLog(log("log-4", "med-1", "2026-02-23", "8:00", true, null, 0L))).isNull();
+    }
+
+    @Test
+    @DisplayName("should use at least 5x less heap than a list of DTOs")
+    void reducesFootprint() {
+        // Distinct String instances per field, as the JDBC driver produces them
+        String[] medIds = {"lx4k2m9abc", "lx4k2n1def", "lx4k2p7ghi", "lx4k2q3jkl"};
+        String[] times = {"08:00", "20:00"};
+        List<MedLogDTO> logs = new ArrayList<>();
+        LocalDate day = LocalDate.of(2023, 1, 1);
+        while (logs.size() < 10_000) {
+            for (String medId : medIds) {
+                for (String time : times) {
+                    logs.add(log("lz" + Long.toString(1_700_000_000_000L + logs.size() * 7919L, 36),
+                            new String(medId), day.toString(), new String(time), logs.size() % 9 != 0,
+                            day + "T" + time + ":00", (long) logs.size()));
+                }
+            }
+            day = day.plusDays(1);
+        }
+
+        long dtoBytes = GraphLayout.parseInstance(logs).totalSize();
+        long compactBytes = GraphLayout.parseInstance(CompactMedLogList.of(logs)).totalSize();
+
+        assertThat(compactBytes * 5).isLessThanOrEqualTo(dtoBytes);
+    }
+
+    private static MedLogDTO log(String id, String medId, String date, String time, Boolean taken,
+                                 String takenAt, Long version) {
+        return MedLogDTO.builder()
+                .id(id)
+                .medId(medId)
+                .date(date)
+                .time(time)
+                .taken(taken)
+                .takenAt(takenAt)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.mediminder.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Compares wire size of the med-log encodings for a 10k-log history
+ * (4 medications, twice a day, ~3.5 years).
+ */
+class MedLogPayloadSizeTest {
+
+    private static final int LOG_COUNT = 10_000;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final ObjectMapper CBOR = new CBORMapper();
+
+    private static List<MedLogDTO> logs;
+
+    @BeforeAll
+    static void buildLogs() {
+        String[] medIds = {"lx4k2m9abc", "lx4k2n1def", "lx4k2p7ghi", "lx4k2q3jkl"};
+        String[] times = {"08:00", "20:00"};
+        LocalDate day = LocalDate.of(2023, 1, 1);
+        logs = new ArrayList<>(LOG_COUNT);
+        while (logs.size() < LOG_COUNT) {
+            for (String medId : medIds) {
+                for (String time : times) {
+                    if (logs.size() < LOG_COUNT) {
+                        logs.add(MedLogDTO.builder()
+                                .id("lz" + Long.toString(1_700_000_000_000L + logs.size() * 7919L, 36))
+                                .medId(medId)
+                                .date(day.toString())
+                                .time(time)
+                                .taken(logs.size() % 9 != 0)
+                                .takenAt(day + "T" + time + ":00")
+                                .build());
+                    }
+                }
+            }
+            day = day.plusDays(1);
+        }
+    }
+
+    @Test
+    @DisplayName("compact encodings should be smaller than plain JSON, before and after gzip")
+    void comparesPayloadSizes() throws IOException {
+        MedLogColumnsDTO columnar = MedLogColumnsDTO.from(logs);
+
+        byte[] json = JSON.writeValueAsBytes(logs);
+        byte[] columnarJson = JSON.writeValueAsBytes(columnar);
+        byte[] cbor = CBOR.writeValueAsBytes(logs);
+
+        assertThat(columnarJson.length).isLessThan(json.length * 2 / 3);
+        assertThat(cbor.length).isLessThan(json.length);
+        assertThat(gzip(columnarJson).length).isLessThan(gzip(json).length);
+        assertThat(gzip(json).length).isLessThan(json.length / 5);
+    }
+
+    @Test
+    @DisplayName("columnar and CBOR encodings should round-trip")
+    void roundTrips() throws IOException {
+        MedLogColumnsDTO columnar = JSON.readValue(
+                JSON.writeValueAsBytes(MedLogColumnsDTO.from(logs)), MedLogColumnsDTO.class);
+        MedLogDTO[] fromCbor = CBOR.readValue(CBOR.writeValueAsBytes(logs), MedLogDTO[].class);
+
+        assertThat(columnar.toList()).isEqualTo(logs);
+        assertThat(fromCbor).containsExactlyElementsOf(logs);
+    }
+
+    private static byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,43 @@
+package com.mediminder.security;
+
+import com.mediminder.config.PasswordHashingProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BCryptWorkFactorCalibratorTest {
+
+    private PasswordHashingProperties properties(boolean calibrate, int strength, int maxStrength, long targetMs) {
+        PasswordHashingProperties props = new PasswordHashingProperties();
+        props.setCalibrate(calibrate);
+        props.setStrength(strength);
+        props.setMaxStrength(maxStrength);
+        props.setTargetLatencyMs(targetMs);
+        return props;
+    }
+
+    @Test
+    @DisplayName("should use configured strength when calibration is disabled")
+    void calibrationDisabled() {
+        BCryptWorkFactorCalibrator calibrator = new BCryptWorkFactorCalibrator(properties(false, 12, 14, 250));
+
+        assertThat(calibrator.resolveStrength()).isEqualTo(12);
+    }
+
+    @Test
+    @DisplayName("should never go below the configured minimum strength")
+    void neverBelowMinimum() {
+        BCryptWorkFactorCalibrator calibrator = new BCryptWorkFactorCalibrator(properties(true, 4, 6, 0));
+
+        assertThat(calibrator.resolveStrength()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("should stop at the maximum strength when every candidate is within target")
+    void capAtMaximum() {
+        BCryptWorkFactorCalibrator calibrator = new BCryptWorkFactorCalibrator(properties(true, 4, 5, 60_000));
+
+        assertThat(calibrator.resolveStrength()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,137 @@
+package com.mediminder.security;
+
+import com.mediminder.config.GoogleAuthProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GooglePublicKeyCacheTest {
+
+    private StubGoogleCertServer certServer;
+    private ScheduledExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private GoogleAuthProperties properties;
+    private GooglePublicKeyCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        certServer = new StubGoogleCertServer();
+        executor = Executors.newSingleThreadScheduledExecutor();
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+        properties = new GoogleAuthProperties();
+        properties.setCertsUrl(certServer.certsUrl());
+        properties.setMaxStale(Duration.ofHours(6));
+
+        cache = new GooglePublicKeyCache(properties, new ConcurrentTaskScheduler(executor), meterRegistry, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        certServer.close();
+    }
+
+    private double refreshCount(String result) {
+        return meterRegistry.get("mediminder.google.certs.refresh").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("should fetch keys inline on first use and serve them from memory afterwards")
+    void coldFetchThenCached() {
+        assertThat(cache.getPublicKeys()).hasSize(1);
+        assertThat(cache.getPublicKeys()).hasSize(1);
+
+        assertThat(certServer.requestCount()).isEqualTo(1);
+        assertThat(refreshCount("success")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should refetch once the Cache-Control max-age has passed")
+    void refetchAfterExpiry() {
+        cache.refresh();
+        properties.setMaxStale(Duration.ZERO);
+
+        clock.advance(Duration.ofMinutes(61));
+
+        assertThat(cache.getPublicKeys()).hasSize(1);
+        assertThat(certServer.requestCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should keep serving expired keys while the endpoint is failing")
+    void serveStaleWhileRefreshFails() {
+        assertThat(cache.refresh()).isTrue();
+        certServer.setStatus(500);
+
+        clock.advance(Duration.ofHours(2));
+
+        assertThat(cache.getPublicKeys()).hasSize(1);
+        assertThat(meterRegistry.get("mediminder.google.certs.stale").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should stop serving keys once they are older than max-stale")
+    void dropKeysBeyondMaxStale() {
+        assertThat(cache.refresh()).isTrue();
+        certServer.setStatus(500);
+
+        clock.advance(Duration.ofHours(8));
+
+        assertThat(cache.getPublicKeys()).isEmpty();
+        assertThat(refreshCount("failure")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should keep the previous keys when a forced refresh fails")
+    void failedRefreshKeepsKeys() {
+        assertThat(cache.refresh()).isTrue();
+        certServer.setStatus(503);
+
+        assertThat(cache.refresh()).isFalse();
+        assertThat(cache.getPublicKeys()).hasSize(1);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
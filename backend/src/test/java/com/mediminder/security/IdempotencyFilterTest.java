@@ -0,0 +1,162 @@
+package com.mediminder.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediminder.config.IdempotencyProperties;
+import com.mediminder.service.IdempotencyService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IdempotencyFilterTest {
+
+    private IdempotencyProperties properties;
+    private IdempotencyFilter filter;
+    private AtomicInteger executions;
+    private int nextStatus;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IdempotencyProperties();
+        IdempotencyService service = new IdempotencyService(null, properties, new SimpleMeterRegistry(), null);
+        filter = new IdempotencyFilter(properties, service, new ObjectMapper());
+        executions = new AtomicInteger();
+        nextStatus = 200;
+    }
+
+    @Test
+    @DisplayName("should replay the stored response without running the request again")
+    void replaysDuplicate() throws Exception {
+        MockHttpServletResponse first = send("key-1", "[{\"medId\":\"med-1\"}]");
+        MockHttpServletResponse second = send("key-1", "[{\"medId\":\"med-1\"}]");
+
+        assertThat(executions).hasValue(1);
+        assertThat(first.getContentAsString()).isEqualTo("saved #1 [{\"medId\":\"med-1\"}]");
+        assertThat(second.getStatus()).isEqualTo(200);
+        assertThat(second.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(second.getContentType()).isEqualTo("application/json");
+        assertThat(second.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(first.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+    }
+
+    @Test
+    @DisplayName("should reject a reused key with a different body")
+    void rejectsDifferentBody() throws Exception {
+        send("key-1", "[1]");
+        MockHttpServletResponse reused = send("key-1", "[2]");
+
+        assertThat(reused.getStatus()).isEqualTo(422);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should run again after a server error")
+    void doesNotStoreServerErrors() throws Exception {
+        nextStatus = 503;
+        send("key-1", "[]");
+        nextStatus = 200;
+        MockHttpServletResponse retry = send("key-1", "[]");
+
+        assertThat(executions).hasValue(2);
+        assertThat(retry.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("should scope keys per user")
+    void scopesKeysPerUser() throws Exception {
+        send("key-1", "[]");
+        MockHttpServletRequest other = request("key-1", "[]");
+        other.setAttribute("userId", "user-456");
+        filter.doFilter(other, new MockHttpServletResponse(), chain());
+
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("should ignore requests without a key, GETs and other paths")
+    void ignoresUnrelatedRequests() throws Exception {
+        send(null, "[]");
+        send(null, "[]");
+
+        MockHttpServletRequest get = request("key-1", "");
+        get.setMethod("GET");
+        filter.doFilter(get, new MockHttpServletResponse(), chain());
+        filter.doFilter(request("key-1", ""), new MockHttpServletResponse(), chain());
+
+        MockHttpServletRequest otherPath = request("key-2", "[]");
+        otherPath.setServletPath("/v1/auth/login");
+        filter.doFilter(otherPath, new MockHttpServletResponse(), chain());
+        filter.doFilter(request("key-2", "[]"), new MockHttpServletResponse(), chain());
+
+        assertThat(executions).hasValue(6);
+    }
+
+    @Test
+    @DisplayName("should pass bodies over the limit through without idempotency")
+    void skipsLargeBodies() throws Exception {
+        properties.setMaxRequestBytes(4);
+        MockHttpServletRequest request = request("key-1", "[1,2,3]");
+        // Chunked: no Content-Length, so the filter only finds out while reading
+        HttpServletRequestWrapper chunked = new HttpServletRequestWrapper(request) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(chunked, first, chain());
+        send("key-1", "[1,2,3]");
+
+        assertThat(executions).hasValue(2);
+        assertThat(first.getContentAsString()).isEqualTo("saved #1 [1,2,3]");
+    }
+
+    @Test
+    @DisplayName("should answer a malformed key with a JSON error")
+    void rejectsBlankKey() throws Exception {
+        MockHttpServletResponse response = send(" ", "[]");
+
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(new ObjectMapper().readTree(response.getContentAsByteArray()).get("error").asText())
+                .startsWith(IdempotencyFilter.HEADER);
+        assertThat(executions).hasValue(0);
+    }
+
+    private MockHttpServletResponse send(String key, String body) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(key, body), response, chain());
+        return response;
+    }
+
+    private MockHttpServletRequest request(String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/med-logs");
+        request.setContextPath("/api");
+        request.setServletPath("/v1/med-logs");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.setAttribute("userId", "user-123");
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.HEADER, key);
+        }
+        return request;
+    }
+
+    private FilterChain chain() {
+        return (request, response) -> {
+            int n = executions.incrementAndGet();
+            String body = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            ((HttpServletResponse) response).setStatus(nextStatus);
+            response.setContentType("application/json");
+            response.getWriter().write("saved #" + n + " " + body);
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package com.mediminder.security;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.json.webtoken.JsonWebSignature;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for Google's certificate endpoint, backed by the test key pair
+ * in {@code google-test-key.p12}. Also signs ID tokens with that key.
+ */
+public class StubGoogleCertServer implements AutoCloseable {
+
+    public static final String KEY_ID = "test-key-1";
+    private static final char[] PASSWORD = "changeit".toCharArray();
+    private static final String ALIAS = "google-test";
+
+    private final HttpServer server;
+    private final PrivateKey privateKey;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile String cacheControl = "public, max-age=3600";
+
+    public StubGoogleCertServer() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = StubGoogleCertServer.class.getResourceAsStream("/google-test-key.p12")) {
+            keyStore.load(in, PASSWORD);
+        }
+        this.privateKey = (PrivateKey) keyStore.getKey(ALIAS, PASSWORD);
+        Certificate certificate = keyStore.getCertificate(ALIAS);
+        String pem = "-----BEGIN CERTIFICATE-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII))
+                        .encodeToString(certificate.getEncoded())
+                + "\n-----END CERTIFICATE-----\n";
+        byte[] certsBody = GsonFactory.getDefaultInstance().toString(Map.of(KEY_ID, pem))
+                .getBytes(StandardCharsets.UTF_8);
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/certs", exchange -> {
+            requestCount.incrementAndGet();
+            byte[] body = status == 200 ? certsBody : "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Cache-Control", cacheControl);
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    public String certsUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/certs";
+    }
+
+    public int requestCount() {
+        return requestCount.get();
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public void setCacheControl(String cacheControl) {
+        this.cacheControl = cacheControl;
+    }
+
+    public String signToken(String audience, String subject, String email, long expiresInSeconds) throws Exception {
+        JsonWebSignature.Header header = new JsonWebSignature.Header();
+        header.setAlgorithm("RS256");
+        header.setKeyId(KEY_ID);
+
+        long now = System.currentTimeMillis() / 1000;
+        GoogleIdToken.Payload payload = new GoogleIdToken.Payload();
+        payload.setIssuer("https://accounts.google.com");
+        payload.setAudience(audience);
+        payload.setSubject(subject);
+        payload.setEmail(email);
+        payload.setIssuedAtTimeSeconds(now);
+        payload.setExpirationTimeSeconds(now + expiresInSeconds);
+
+        return JsonWebSignature.signUsingRsaSha256(privateKey, GsonFactory.getDefaultInstance(), header, payload);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
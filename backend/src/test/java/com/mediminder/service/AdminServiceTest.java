@@ -0,0 +1,123 @@
+package com.mediminder.service;
+
+import com.mediminder.config.AdminProperties;
+import com.mediminder.config.CacheConfig;
+import com.mediminder.dto.AdminUserPageDTO;
+import com.mediminder.dto.AdminUserSummaryDTO;
+import com.mediminder.exception.ForbiddenException;
+import com.mediminder.repository.UserRepository;
+import com.mediminder.repository.UserSummaryRow;
+import com.mediminder.security.UserPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Spy
+    private AdminProperties adminProperties = new AdminProperties();
+
+    @Spy
+    private CacheManager cacheManager = new CaffeineCacheManager(CacheConfig.ADMIN_USER_SUMMARIES_CACHE);
+
+    @InjectMocks
+    private AdminService adminService;
+
+    @Nested
+    @DisplayName("requireAdmin")
+    class RequireAdmin {
+
+        @BeforeEach
+        void setUpAdmins() {
+            adminProperties.setEmails(List.of("admin@example.com"));
+        }
+
+        @Test
+        @DisplayName("should accept a configured email regardless of case")
+        void acceptsAdmin() {
+            assertThatCode(() -> adminService.requireAdmin(new UserPrincipal("user-1", "ADMIN@example.com")))
+                    .doesNotThrowAnyException();
+        }
+
+        @Test
+        @DisplayName("should reject other users")
+        void rejectsOthers() {
+            assertThatThrownBy(() -> adminService.requireAdmin(new UserPrincipal("user-2", "someone@example.com")))
+                    .isInstanceOf(ForbiddenException.class);
+        }
+
+        @Test
+        @DisplayName("should reject everyone when no admin is configured")
+        void disabledByDefault() {
+            adminProperties.setEmails(new AdminProperties().getEmails());
+
+            assertThatThrownBy(() -> adminService.requireAdmin(new UserPrincipal("user-1", "admin@example.com")))
+                    .isInstanceOf(ForbiddenException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("getUsers")
+    class GetUsers {
+
+        @Test
+        @DisplayName("should return a cursor when another page follows")
+        void returnsNextCursor() {
+            when(userRepository.findSummaries(null, 3))
+                    .thenReturn(List.of(row("a", 4, 3), row("b", 0, 0), row("c", 1, 1)));
+
+            AdminUserPageDTO page = adminService.getUsers(null, 2);
+
+            assertThat(page.getUsers()).extracting(AdminUserSummaryDTO::getId).containsExactly("a", "b");
+            assertThat(page.getNextCursor()).isEqualTo("b");
+            assertThat(page.getUsers().get(0).getAdherence()).isEqualTo(0.75);
+            assertThat(page.getUsers().get(1).getAdherence()).isNull();
+        }
+
+        @Test
+        @DisplayName("should return no cursor on the last page")
+        void lastPage() {
+            when(userRepository.findSummaries("b", 3)).thenReturn(List.of(row("c", 1, 1)));
+
+            AdminUserPageDTO page = adminService.getUsers("b", 2);
+
+            assertThat(page.getUsers()).hasSize(1);
+            assertThat(page.getNextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("should serve a repeated page from cache and cap the page size")
+        void cachesPages() {
+            adminProperties.setMaxPageSize(10);
+            when(userRepository.findSummaries(null, 11)).thenReturn(List.of(row("a", 0, 0)));
+
+            adminService.getUsers(null, 1000);
+            adminService.getUsers("", 1000);
+
+            verify(userRepository, times(1)).findSummaries(null, 11);
+        }
+    }
+
+    private static UserSummaryRow row(String id, long logs, long taken) {
+        return new UserSummaryRow(id, id + "@example.com", null, LocalDateTime.of(2024, 1, 1, 8, 0),
+                1, logs, taken, logs > 0 ? LocalDateTime.of(2024, 1, 2, 8, 0) : null);
+    }
+}
@@ -1,9 +1,12 @@
 package com.mediminder.service;
 
+import com.mediminder.config.CacheConfig;
 import com.mediminder.dto.AppointmentDTO;
 import com.mediminder.entity.Appointment;
 import com.mediminder.entity.User;
 import com.mediminder.repository.AppointmentRepository;
+import com.mediminder.repository.AppointmentRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,11 +14,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Collections;
 import java.util.List;
@@ -33,11 +38,26 @@ class AppointmentServiceTest {
     @Mock
     private AuthService authService;
 
+    @Mock
+    private CollectionVersionService collectionVersionService;
+
+    @Mock
+    private UserWriteLockService userWriteLockService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Spy
+    private CacheLoadCoalescer cacheLoadCoalescer =
+            new CacheLoadCoalescer(new SimpleMeterRegistry(), new CollectionVersionService(),
+                    mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private AppointmentService appointmentService;
 
     private User testUser;
     private Appointment testAppointment;
+    private AppointmentRow testRow;
     private AppointmentDTO testDTO;
 
     @BeforeEach
@@ -47,6 +67,9 @@ class AppointmentServiceTest {
                 .email("test@example.com")
                 .build();
 
+        testRow = new AppointmentRow("apt-1", "Dr. Smith", "Cardiology", "2026-03-01", "10:00", "Hospital A",
+                "Annual checkup", "pending", 0L);
+
         testAppointment = Appointment.builder()
                 .id("apt-1")
                 .user(testUser)
@@ -78,8 +101,8 @@ class AppointmentServiceTest {
         @Test
         @DisplayName("should return list of appointments for user")
         void getAppointmentsSuccess() {
-            when(appointmentRepository.findByUserId("user-123"))
-                    .thenReturn(List.of(testAppointment));
+            when(appointmentRepository.findRowsByUserId("user-123"))
+                    .thenReturn(List.of(testRow));
 
             List<AppointmentDTO> result = appointmentService.getAppointments("user-123");
 
@@ -92,7 +115,7 @@ class AppointmentServiceTest {
         @Test
         @DisplayName("should return empty list when no appointments")
         void getAppointmentsEmpty() {
-            when(appointmentRepository.findByUserId("user-123"))
+            when(appointmentRepository.findRowsByUserId("user-123"))
                     .thenReturn(Collections.emptyList());
 
             List<AppointmentDTO> result = appointmentService.getAppointments("user-123");
@@ -104,8 +127,8 @@ class AppointmentServiceTest {
         @DisplayName("should return paginated appointments")
         void getAppointmentsPaginated() {
             Pageable pageable = PageRequest.of(0, 10);
-            Page<Appointment> page = new PageImpl<>(List.of(testAppointment), pageable, 1);
-            when(appointmentRepository.findByUserId("user-123", pageable)).thenReturn(page);
+            Page<AppointmentRow> page = new PageImpl<>(List.of(testRow), pageable, 1);
+            when(appointmentRepository.findRowsByUserId("user-123", pageable)).thenReturn(page);
 
             Page<AppointmentDTO> result = appointmentService.getAppointments("user-123", pageable);
 
@@ -128,7 +151,7 @@ class AppointmentServiceTest {
 
             assertThat(result).hasSize(1);
             assertThat(result.get(0).getDoctorName()).isEqualTo("Dr. Smith");
-            verify(appointmentRepository).deleteByUserIdAndIdNotIn(eq("user-123"), anyList());
+            verify(appointmentRepository).deleteByUserIdExcept(eq("user-123"), anyList());
             verify(appointmentRepository).saveAll(anyList());
         }
 
@@ -154,7 +177,7 @@ class AppointmentServiceTest {
             appointmentService.saveAppointments("user-123", List.of(newDTO));
 
             verify(appointmentRepository).deleteByUserId("user-123");
-            verify(appointmentRepository, never()).deleteByUserIdAndIdNotIn(anyString(), anyList());
+            verify(appointmentRepository, never()).deleteByUserIdExcept(anyString(), anyList());
         }
 
         @Test
@@ -191,6 +214,8 @@ class AppointmentServiceTest {
             appointmentService.deleteAllAppointments("user-123");
 
             verify(appointmentRepository).deleteByUserId("user-123");
+            verify(userWriteLockService).lock("user-123");
+            verify(collectionVersionService).bump("user-123", CacheConfig.APPOINTMENTS_CACHE);
         }
     }
 }
@@ -16,7 +16,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Optional;
 
@@ -31,7 +30,7 @@ class AuthServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Mock
     private JwtTokenProvider tokenProvider;
@@ -65,7 +64,7 @@ class AuthServiceTest {
         @DisplayName("should register a new user successfully")
         void registerSuccess() {
             when(userRepository.existsByEmail("test@example.com")).thenReturn(false);
-            when(passwordEncoder.encode("password123")).thenReturn("encoded-password");
+            when(passwordHashingService.encode("password123")).thenReturn("encoded-password");
             when(userRepository.save(any(User.class))).thenReturn(testUser);
             when(tokenProvider.generateToken("user-123", "test@example.com")).thenReturn("jwt-token");
 
@@ -94,7 +93,7 @@ class AuthServiceTest {
         @DisplayName("should derive fullName from email")
         void registerDeriveFullName() {
             when(userRepository.existsByEmail("test@example.com")).thenReturn(false);
-            when(passwordEncoder.encode(anyString())).thenReturn("encoded");
+            when(passwordHashingService.encode(anyString())).thenReturn("encoded");
             when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
                 User saved = invocation.getArgument(0);
                 saved.setId("user-new");
@@ -117,7 +116,7 @@ class AuthServiceTest {
         @DisplayName("should login with correct credentials")
         void loginSuccess() {
             when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
-            when(passwordEncoder.matches("password123", "encoded-password")).thenReturn(true);
+            when(passwordHashingService.matches("password123", "encoded-password")).thenReturn(true);
             when(tokenProvider.generateToken("user-123", "test@example.com")).thenReturn("jwt-token");
 
             AuthResponse response = authService.login(authRequest);
@@ -127,6 +126,34 @@ class AuthServiceTest {
             assertThat(response.getMessage()).isEqualTo("Login successful");
         }
 
+        @Test
+        @DisplayName("should rehash password when stored hash uses an outdated work factor")
+        void loginUpgradesOutdatedHash() {
+            when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+            when(passwordHashingService.matches("password123", "encoded-password")).thenReturn(true);
+            when(passwordHashingService.upgradeEncoding("encoded-password")).thenReturn(true);
+            when(passwordHashingService.encode("password123")).thenReturn("rehashed-password");
+            when(tokenProvider.generateToken("user-123", "test@example.com")).thenReturn("jwt-token");
+
+            authService.login(authRequest);
+
+            verify(userRepository).updatePassword("user-123", "rehashed-password");
+        }
+
+        @Test
+        @DisplayName("should not rehash password when stored hash is current")
+        void loginKeepsCurrentHash() {
+            when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+            when(passwordHashingService.matches("password123", "encoded-password")).thenReturn(true);
+            when(passwordHashingService.upgradeEncoding("encoded-password")).thenReturn(false);
+            when(tokenProvider.generateToken("user-123", "test@example.com")).thenReturn("jwt-token");
+
+            authService.login(authRequest);
+
+            verify(passwordHashingService, never()).encode(anyString());
+            verify(userRepository, never()).updatePassword(anyString(), anyString());
+        }
+
         @Test
         @DisplayName("should throw AuthenticationException for invalid email")
         void loginInvalidEmail() {
@@ -141,7 +168,7 @@ class AuthServiceTest {
         @DisplayName("should throw AuthenticationException for wrong password")
         void loginWrongPassword() {
             when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
-            when(passwordEncoder.matches("password123", "encoded-password")).thenReturn(false);
+            when(passwordHashingService.matches("password123", "encoded-password")).thenReturn(false);
 
             assertThatThrownBy(() -> authService.login(authRequest))
                     .isInstanceOf(AuthenticationException.class)
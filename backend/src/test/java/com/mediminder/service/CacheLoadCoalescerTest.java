@@ -0,0 +1,156 @@
+package com.mediminder.service;
+
+import com.mediminder.config.CacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CacheLoadCoalescerTest {
+
+    private static final int CALLERS = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CollectionVersionService collectionVersionService;
+    private PlatformTransactionManager transactionManager;
+    private CacheLoadCoalescer coalescer;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        collectionVersionService = new CollectionVersionService();
+        transactionManager = mock(PlatformTransactionManager.class);
+        coalescer = new CacheLoadCoalescer(meterRegistry, collectionVersionService, transactionManager);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("should run one load for concurrent callers and share its result")
+    void coalescesConcurrentLoads() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> coalescer.load(CacheConfig.MED_LOGS_CACHE, "user-123", () -> {
+                loads.incrementAndGet();
+                await(release);
+                return List.of("log-1");
+            })));
+        }
+        waitForCoalesced(CALLERS - 1);
+        release.countDown();
+
+        for (Future<List<String>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).containsExactly("log-1");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(count("mediminder.cache.load")).isEqualTo(1);
+        assertThat(count("mediminder.cache.load.coalesced")).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    @DisplayName("should propagate a failed load to every waiter and not keep it")
+    void propagatesFailures() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Object> leader = executor.submit(() -> coalescer.load(CacheConfig.MED_LOGS_CACHE, "user-123", () -> {
+            await(release);
+            throw new IllegalStateException("db down");
+        }));
+        waitForLoadStarted();
+        Future<Object> follower = executor.submit(() ->
+                coalescer.load(CacheConfig.MED_LOGS_CACHE, "user-123", () -> "unused"));
+        waitForCoalesced(1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(coalescer.load(CacheConfig.MED_LOGS_CACHE, "user-123", () -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    @DisplayName("should not let a caller join a load that started before a write")
+    void versionBumpStartsNewLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> stale = executor.submit(() -> coalescer.load(CacheConfig.MED_LOGS_CACHE, "user-123", () -> {
+            await(release);
+            return "before-write";
+        }));
+        waitForLoadStarted();
+
+        collectionVersionService.bump("user-123", CacheConfig.MED_LOGS_CACHE);
+        String fresh = coalescer.load(CacheConfig.MED_LOGS_CACHE, "user-123", () -> "after-write");
+        release.countDown();
+
+        assertThat(fresh).isEqualTo("after-write");
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo("before-write");
+        assertThat(count("mediminder.cache.load.coalesced")).isZero();
+    }
+
+    @Test
+    @DisplayName("should run the load in a read-only transaction")
+    void loadsReadOnly() {
+        coalescer.load(CacheConfig.MED_LOGS_CACHE, "user-1", () -> "a");
+
+        // Read-only JPA transactions also switch the session to flush mode MANUAL
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("should not coalesce different users")
+    void separateUsers() {
+        assertThat(coalescer.load(CacheConfig.MED_LOGS_CACHE, "user-1", () -> "a")).isEqualTo("a");
+        assertThat(coalescer.load(CacheConfig.MED_LOGS_CACHE, "user-2", () -> "b")).isEqualTo("b");
+        assertThat(count("mediminder.cache.load")).isEqualTo(2);
+    }
+
+    private double count(String name) {
+        var counter = meterRegistry.find(name).tag("cache", CacheConfig.MED_LOGS_CACHE).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private void waitForCoalesced(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (count("mediminder.cache.load.coalesced") < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void waitForLoadStarted() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (count("mediminder.cache.load") < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
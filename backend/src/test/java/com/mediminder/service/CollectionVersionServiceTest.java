@@ -0,0 +1,85 @@
+package com.mediminder.service;
+
+import com.mediminder.config.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CollectionVersionServiceTest {
+
+    private final CollectionVersionService service = new CollectionVersionService();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("should return a stable strong ETag until the collection changes")
+    void stableUntilBumped() {
+        String first = service.etag("user-123", CacheConfig.MED_LOGS_CACHE);
+
+        assertThat(first).startsWith("\"").endsWith("\"").doesNotStartWith("W/");
+        assertThat(service.etag("user-123", CacheConfig.MED_LOGS_CACHE)).isEqualTo(first);
+
+        service.bump("user-123", CacheConfig.MED_LOGS_CACHE);
+
+        assertThat(service.etag("user-123", CacheConfig.MED_LOGS_CACHE)).isNotEqualTo(first);
+    }
+
+    @Test
+    @DisplayName("should version users and collections independently")
+    void independentKeys() {
+        String medLogs = service.etag("user-123", CacheConfig.MED_LOGS_CACHE);
+        String medications = service.etag("user-123", CacheConfig.MEDICATIONS_CACHE);
+        String otherUser = service.etag("user-456", CacheConfig.MED_LOGS_CACHE);
+
+        service.bump("user-123", CacheConfig.MEDICATIONS_CACHE);
+
+        assertThat(service.etag("user-123", CacheConfig.MED_LOGS_CACHE)).isEqualTo(medLogs);
+        assertThat(service.etag("user-456", CacheConfig.MED_LOGS_CACHE)).isEqualTo(otherUser);
+        assertThat(service.etag("user-123", CacheConfig.MEDICATIONS_CACHE)).isNotEqualTo(medications);
+    }
+
+    @Test
+    @DisplayName("should change a combined ETag when any of its collections changes")
+    void combinedEtag() {
+        String combined = service.etag("user-123", CacheConfig.MEDICATIONS_CACHE, CacheConfig.MED_LOGS_CACHE);
+
+        assertThat(service.etag("user-123", CacheConfig.MEDICATIONS_CACHE, CacheConfig.MED_LOGS_CACHE))
+                .isEqualTo(combined);
+
+        service.bump("user-123", CacheConfig.MED_LOGS_CACHE);
+
+        assertThat(service.etag("user-123", CacheConfig.MEDICATIONS_CACHE, CacheConfig.MED_LOGS_CACHE))
+                .isNotEqualTo(combined);
+    }
+
+    @Test
+    @DisplayName("should not match ETags issued by another instance (e.g. before a restart)")
+    void differentBootIds() {
+        CollectionVersionService other = new CollectionVersionService();
+
+        assertThat(other.etag("user-123", CacheConfig.MED_LOGS_CACHE))
+                .isNotEqualTo(service.etag("user-123", CacheConfig.MED_LOGS_CACHE));
+    }
+
+    @Test
+    @DisplayName("should defer the bump until the transaction commits")
+    void bumpsAfterCommit() {
+        String before = service.etag("user-123", CacheConfig.APPOINTMENTS_CACHE);
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.bump("user-123", CacheConfig.APPOINTMENTS_CACHE);
+        assertThat(service.etag("user-123", CacheConfig.APPOINTMENTS_CACHE)).isEqualTo(before);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(service.etag("user-123", CacheConfig.APPOINTMENTS_CACHE)).isNotEqualTo(before);
+    }
+}
@@ -0,0 +1,126 @@
+package com.mediminder.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediminder.config.ExportProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs the export against an in-memory H2 database with the same table layout
+ * (jsonb replaced by a JSON text column).
+ */
+class ExportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ExportService exportService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:export;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE medications (id VARCHAR(50) PRIMARY KEY, user_id VARCHAR(36), "
+                + "name VARCHAR(255), dosage VARCHAR(255), frequency VARCHAR(50), times VARCHAR(1000), "
+                + "notes TEXT, created_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE med_logs (id VARCHAR(50) PRIMARY KEY, user_id VARCHAR(36), "
+                + "med_id VARCHAR(50), date VARCHAR(10), time VARCHAR(5), taken BOOLEAN, taken_at TIMESTAMP, "
+                + "created_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE appointments (id VARCHAR(50) PRIMARY KEY, user_id VARCHAR(36), "
+                + "doctor_name VARCHAR(255), specialty VARCHAR(255), date VARCHAR(10), time VARCHAR(5), "
+                + "location VARCHAR(255), notes TEXT, status VARCHAR(20), created_at TIMESTAMP)");
+
+        exportService = new ExportService(dataSource, new DataSourceTransactionManager(dataSource),
+                objectMapper, new ExportProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("should stream every collection as NDJSON entries in one zip")
+    void exportsAllCollections() throws Exception {
+        jdbcTemplate.update("INSERT INTO medications VALUES ('med-1', 'user-123', 'Aspirin', '100mg', 'daily', "
+                + "'[\"08:00\",\"20:00\"]', 'with food', TIMESTAMP '2026-02-01 10:00:00')");
+        jdbcTemplate.update("INSERT INTO appointments VALUES ('apt-1', 'user-123', 'Dr. Smith', null, "
+                + "'2026-03-01', '10:00', null, null, 'pending', null)");
+        jdbcTemplate.update("INSERT INTO appointments VALUES ('apt-2', 'other-user', 'Dr. Who', null, "
+                + "'2026-03-01', '10:00', null, null, 'pending', null)");
+        jdbcTemplate.batchUpdate("INSERT INTO med_logs VALUES (?, 'user-123', 'med-1', '2026-02-23', '08:00', "
+                + "TRUE, TIMESTAMP '2026-02-23 08:30:00', null)", logIds(2500));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exportService.writeExport("user-123", out);
+
+        Map<String, List<JsonNode>> entries = readZip(out.toByteArray());
+        assertThat(rows).isEqualTo(2502);
+        assertThat(entries).containsOnlyKeys("medications.ndjson", "med_logs.ndjson", "appointments.ndjson");
+
+        JsonNode medication = entries.get("medications.ndjson").get(0);
+        assertThat(medication.get("name").asText()).isEqualTo("Aspirin");
+        assertThat(medication.get("times").isArray()).isTrue();
+        assertThat(medication.get("times").get(1).asText()).isEqualTo("20:00");
+        assertThat(medication.get("createdAt").asText()).isEqualTo("2026-02-01T10:00:00");
+
+        assertThat(entries.get("med_logs.ndjson")).hasSize(2500);
+        assertThat(entries.get("med_logs.ndjson").get(0).get("takenAt").asText()).isEqualTo("2026-02-23T08:30:00");
+
+        assertThat(entries.get("appointments.ndjson")).hasSize(1);
+        assertThat(entries.get("appointments.ndjson").get(0).get("specialty").isNull()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should produce empty entries for a user without data")
+    void exportsEmptyUser() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThat(exportService.writeExport("nobody", out)).isZero();
+        assertThat(readZip(out.toByteArray())).allSatisfy((name, rows) -> assertThat(rows).isEmpty());
+    }
+
+    private static List<Object[]> logIds(int count) {
+        List<Object[]> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(new Object[]{"log-" + i});
+        }
+        return ids;
+    }
+
+    private Map<String, List<JsonNode>> readZip(byte[] bytes) throws Exception {
+        Map<String, List<JsonNode>> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                List<JsonNode> rows = new ArrayList<>();
+                String content = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                for (String line : content.split("\n")) {
+                    if (!line.isBlank()) {
+                        rows.add(objectMapper.readTree(line));
+                    }
+                }
+                entries.put(entry.getName(), rows);
+            }
+        }
+        return entries;
+    }
+}
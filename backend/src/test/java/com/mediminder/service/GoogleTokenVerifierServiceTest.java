@@ -0,0 +1,94 @@
+package com.mediminder.service;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.mediminder.config.GoogleAuthProperties;
+import com.mediminder.security.GooglePublicKeyCache;
+import com.mediminder.security.StubGoogleCertServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GoogleTokenVerifierServiceTest {
+
+    private static final String CLIENT_ID = "test-google-client-id";
+
+    private StubGoogleCertServer certServer;
+    private ScheduledExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private GoogleTokenVerifierService verifierService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        certServer = new StubGoogleCertServer();
+        executor = Executors.newSingleThreadScheduledExecutor();
+        meterRegistry = new SimpleMeterRegistry();
+
+        GoogleAuthProperties properties = new GoogleAuthProperties();
+        properties.setCertsUrl(certServer.certsUrl());
+        GooglePublicKeyCache keyCache = new GooglePublicKeyCache(
+                properties, new ConcurrentTaskScheduler(executor), meterRegistry);
+
+        verifierService = new GoogleTokenVerifierService(CLIENT_ID, keyCache, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        certServer.close();
+    }
+
+    @Test
+    @DisplayName("should return payload for a token signed by a published key")
+    void verifyValidToken() throws Exception {
+        String token = certServer.signToken(CLIENT_ID, "google-123", "user@example.com", 3600);
+
+        GoogleIdToken.Payload payload = verifierService.verify(token);
+
+        assertThat(payload).isNotNull();
+        assertThat(payload.getSubject()).isEqualTo("google-123");
+        assertThat(payload.getEmail()).isEqualTo("user@example.com");
+        assertThat(meterRegistry.get("mediminder.google.token.verify").tag("outcome", "valid").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should reject a token issued for another client")
+    void rejectWrongAudience() throws Exception {
+        String token = certServer.signToken("some-other-client", "google-123", "user@example.com", 3600);
+
+        assertThat(verifierService.verify(token)).isNull();
+    }
+
+    @Test
+    @DisplayName("should reject an expired token")
+    void rejectExpiredToken() throws Exception {
+        String token = certServer.signToken(CLIENT_ID, "google-123", "user@example.com", -3600);
+
+        assertThat(verifierService.verify(token)).isNull();
+    }
+
+    @Test
+    @DisplayName("should reject a token with a tampered signature")
+    void rejectTamperedToken() throws Exception {
+        String token = certServer.signToken(CLIENT_ID, "google-123", "user@example.com", 3600);
+        String tampered = token.substring(0, token.length() - 4) + "AAAA";
+
+        assertThat(verifierService.verify(tampered)).isNull();
+    }
+
+    @Test
+    @DisplayName("should not throw on malformed input")
+    void rejectMalformedToken() {
+        assertThat(verifierService.verify("not-a-jwt")).isNull();
+        assertThat(meterRegistry.get("mediminder.google.token.verify").tag("outcome", "error").timer().count())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,106 @@
+package com.mediminder.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ImportCollectionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Nested
+    @DisplayName("fromPath")
+    class FromPath {
+
+        @Test
+        @DisplayName("should resolve URL path segments")
+        void resolvesPaths() {
+            assertThat(ImportCollection.fromPath("med-logs")).contains(ImportCollection.MED_LOGS);
+            assertThat(ImportCollection.fromPath("medications")).contains(ImportCollection.MEDICATIONS);
+            assertThat(ImportCollection.fromPath("users")).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("toCsvRow")
+    class ToCsvRow {
+
+        @Test
+        @DisplayName("should render fields in header order")
+        void rendersInHeaderOrder() throws Exception {
+            String row = ImportCollection.MED_LOGS.toCsvRow(objectMapper.readTree(
+                    "{\"taken\":true,\"time\":\"08:00\",\"id\":\"log-1\",\"medId\":\"med-1\","
+                            + "\"date\":\"2026-02-23\",\"takenAt\":\"2026-02-23T08:30:00\"}"));
+
+            assertThat(ImportCollection.MED_LOGS.csvHeader()).isEqualTo("id,med_id,date,time,taken,taken_at");
+            assertThat(row).isEqualTo("\"log-1\",\"med-1\",\"2026-02-23\",\"08:00\",true,\"2026-02-23T08:30:00\"\n");
+        }
+
+        @Test
+        @DisplayName("should leave missing and null fields empty so COPY reads NULL")
+        void missingFieldsAreNull() throws Exception {
+            String row = ImportCollection.MED_LOGS.toCsvRow(objectMapper.readTree(
+                    "{\"medId\":\"med-1\",\"date\":\"2026-02-23\",\"time\":\"08:00\",\"takenAt\":null}"));
+
+            assertThat(row).isEqualTo(",\"med-1\",\"2026-02-23\",\"08:00\",,\n");
+        }
+
+        @Test
+        @DisplayName("should quote embedded quotes and serialize arrays as JSON")
+        void escapesValues() throws Exception {
+            String row = ImportCollection.MEDICATIONS.toCsvRow(objectMapper.readTree(
+                    "{\"id\":\"m1\",\"name\":\"Vitamin \\\"D\\\"\",\"dosage\":\"1\",\"frequency\":\"daily\","
+                            + "\"times\":[\"08:00\",\"20:00\"],\"notes\":\"a, b\"}"));
+
+            assertThat(row).isEqualTo(
+                    "\"m1\",\"Vitamin \"\"D\"\"\",\"1\",\"daily\",\"[\"\"08:00\"\",\"\"20:00\"\"]\",\"a, b\"\n");
+        }
+    }
+
+    @Nested
+    @DisplayName("SQL")
+    class Sql {
+
+        @Test
+        @DisplayName("should copy into the staging table in header order")
+        void copySql() {
+            assertThat(ImportCollection.APPOINTMENTS.copySql(true))
+                    .startsWith("COPY import_appointments (" + ImportCollection.APPOINTMENTS.csvHeader() + ")")
+                    .contains("HEADER true");
+            assertThat(ImportCollection.APPOINTMENTS.copySql(false)).doesNotContain("HEADER");
+        }
+
+        @Test
+        @DisplayName("should merge with a single user-scoped upsert")
+        void mergeSql() {
+            String sql = ImportCollection.MED_LOGS.mergeSql();
+
+            assertThat(sql)
+                    .startsWith("INSERT INTO med_logs (id, user_id, med_id, date, time, taken, taken_at, created_at)")
+                    .contains("DISTINCT ON (s.id)")
+                    .contains("COALESCE(NULLIF(id, ''), " + ImportCollection.UUID_V7_SQL + ") AS id")
+                    .contains("ORDER BY s.id, s.ord DESC")
+                    .contains("s.med_id IS NOT NULL AND s.date IS NOT NULL AND s.time IS NOT NULL")
+                    .contains("version = med_logs.version + 1")
+                    .endsWith("WHERE med_logs.user_id = EXCLUDED.user_id");
+            assertThat(sql.chars().filter(c -> c == '?').count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should free doses taken over by staged med logs")
+        void freeNaturalKeySql() {
+            assertThat(ImportCollection.MED_LOGS.freeNaturalKeySql()).hasValueSatisfying(sql -> assertThat(sql)
+                    .startsWith("DELETE FROM med_logs t USING import_med_logs s WHERE t.user_id = ?")
+                    .contains("t.med_id = s.med_id AND t.date = s.date AND t.time = s.time")
+                    .contains("NOT EXISTS (SELECT 1 FROM import_med_logs k WHERE k.id = t.id)"));
+            assertThat(ImportCollection.MED_LOGS.mergeSql())
+                    .contains("DISTINCT ON (d.med_id, d.date, d.time)")
+                    .contains("ORDER BY d.med_id, d.date, d.time, d.ord DESC");
+            assertThat(ImportCollection.MEDICATIONS.freeNaturalKeySql()).isEmpty();
+            assertThat(ImportCollection.APPOINTMENTS.mergeSql()).doesNotContain("DISTINCT ON (d.");
+        }
+    }
+}
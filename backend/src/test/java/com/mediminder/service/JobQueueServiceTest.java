@@ -0,0 +1,28 @@
+package com.mediminder.service;
+
+import com.mediminder.config.JobQueueProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+class JobQueueServiceTest {
+
+    @Test
+    @DisplayName("should double the retry delay per attempt up to the maximum")
+    void backoffDoublesUpToMax() {
+        JobQueueProperties properties = new JobQueueProperties();
+        properties.setBackoffBase(Duration.ofSeconds(10));
+        properties.setBackoffMax(Duration.ofMinutes(1));
+        JobQueueService service = new JobQueueService(null, properties, new SimpleMeterRegistry(), null);
+
+        assertThat(service.backoff(1)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(service.backoff(2)).isEqualTo(Duration.ofSeconds(20));
+        assertThat(service.backoff(3)).isEqualTo(Duration.ofSeconds(40));
+        assertThat(service.backoff(4)).isEqualTo(Duration.ofMinutes(1));
+        assertThat(service.backoff(100)).isEqualTo(Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,165 @@
+package com.mediminder.service;
+
+import com.mediminder.config.JobQueueProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobWorkerTest {
+
+    @Mock
+    private JobQueueService jobQueueService;
+
+    private JobQueueProperties properties;
+    private HeldExecutor executor;
+    private List<Job> handled;
+    private RuntimeException failure;
+
+    @BeforeEach
+    void setUp() {
+        properties = new JobQueueProperties();
+        executor = new HeldExecutor();
+        handled = new ArrayList<>();
+        failure = null;
+    }
+
+    @Test
+    @DisplayName("should only claim as many jobs as the queue has free slots")
+    void respectsConcurrency() {
+        properties.setDefaultConcurrency(3);
+        when(jobQueueService.claim("rollups", 3)).thenReturn(List.of(job(1, 1), job(2, 1)));
+        JobWorker worker = worker();
+
+        worker.poll();
+        worker.poll();
+
+        verify(jobQueueService).claim("rollups", 3);
+        verify(jobQueueService).claim("rollups", 1);
+        executor.runAll();
+        assertThat(handled).extracting(Job::id).containsExactly(1L, 2L);
+        verify(jobQueueService, times(2)).complete(any());
+    }
+
+    @Test
+    @DisplayName("should not claim more than the batch size per poll")
+    void respectsBatchSize() {
+        properties.setDefaultConcurrency(50);
+        properties.setBatchSize(10);
+
+        worker().poll();
+
+        verify(jobQueueService).claim("rollups", 10);
+    }
+
+    @Test
+    @DisplayName("should hand a failed job back for retry and free its slot")
+    void failsJob() {
+        properties.setDefaultConcurrency(1);
+        failure = new IllegalStateException("boom");
+        Job job = job(7, 2);
+        when(jobQueueService.claim("rollups", 1)).thenReturn(List.of(job)).thenReturn(List.of());
+        JobWorker worker = worker();
+
+        worker.poll();
+        executor.runAll();
+        worker.poll();
+
+        verify(jobQueueService).fail(job, failure);
+        verify(jobQueueService, never()).complete(any());
+        verify(jobQueueService, times(2)).claim("rollups", 1);
+    }
+
+    @Test
+    @DisplayName("should stop claiming after shutdown")
+    void stopsOnShutdown() throws InterruptedException {
+        JobWorker worker = worker();
+
+        worker.shutdown();
+        worker.poll();
+
+        verify(jobQueueService, never()).claim(anyString(), anyInt());
+    }
+
+    private JobWorker worker() {
+        JobHandler handler = new JobHandler() {
+            @Override
+            public String queue() {
+                return "rollups";
+            }
+
+            @Override
+            public void handle(Job job) {
+                handled.add(job);
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        };
+        return new JobWorker(jobQueueService, List.of(handler), properties, new SimpleMeterRegistry(), executor);
+    }
+
+    private static Job job(long id, int attempts) {
+        return new Job(id, "rollups", "{}", attempts, 5, LocalDateTime.now());
+    }
+
+    /**
+     * Holds submitted tasks until the test runs them.
+     */
+    private static class HeldExecutor extends AbstractExecutorService {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+        private boolean shutdown;
+
+        void runAll() {
+            List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+            pending.forEach(Runnable::run);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return tasks;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
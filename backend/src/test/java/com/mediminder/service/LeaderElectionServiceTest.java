@@ -0,0 +1,48 @@
+package com.mediminder.service;
+
+import com.mediminder.config.LeaderElectionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LeaderElectionServiceTest {
+
+    @Test
+    @DisplayName("should always lead when election is disabled")
+    void disabledLeads() {
+        LeaderElectionProperties properties = new LeaderElectionProperties();
+        properties.setEnabled(false);
+        LeaderElectionService service = service("jdbc:h2:mem:leader-disabled", properties);
+
+        service.renew();
+
+        assertThat(service.isLeader()).isTrue();
+        assertThat(new LeaderElectionHealthIndicator(service, properties).health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    @DisplayName("should stay a follower while the lock session can't be set up")
+    void followerWithoutLockSession() {
+        LeaderElectionProperties properties = new LeaderElectionProperties();
+        // H2 has neither advisory locks nor keepalive settings
+        LeaderElectionService service = service("jdbc:h2:mem:leader-enabled", properties);
+
+        service.renew();
+
+        assertThat(service.isLeader()).isFalse();
+        assertThat(service.isConnected()).isFalse();
+        assertThat(new LeaderElectionHealthIndicator(service, properties).health().getStatus())
+                .isEqualTo(Status.UNKNOWN);
+        service.shutdown();
+    }
+
+    private static LeaderElectionService service(String url, LeaderElectionProperties properties) {
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(url);
+        return new LeaderElectionService(dataSourceProperties, properties, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,267 @@
+package com.mediminder.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediminder.config.CacheConfig;
+import com.mediminder.config.IngestProperties;
+import com.mediminder.dto.ImportResultDTO;
+import com.mediminder.entity.MedLog;
+import com.mediminder.entity.User;
+import com.mediminder.exception.BadRequestException;
+import com.mediminder.exception.PayloadTooLargeException;
+import com.mediminder.exception.VersionConflictException;
+import com.mediminder.repository.MedLogRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MedLogIngestServiceTest {
+
+    @Mock
+    private MedLogRepository medLogRepository;
+
+    @Mock
+    private AuthService authService;
+
+    @Mock
+    private CollectionVersionService collectionVersionService;
+
+    @Mock
+    private UserWriteLockService userWriteLockService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private MedLogIngestService ingestService;
+
+    /** Statements run through a PreparedStatementCreator, with their array parameters */
+    private final List<Statement> statements = new ArrayList<>();
+
+    private record Statement(String sql, List<List<Object>> arrays) {
+
+        boolean is(String prefix) {
+            return sql.startsWith(prefix);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        IngestProperties properties = new IngestProperties();
+        properties.setChunkSize(2);
+        properties.setMaxItems(5);
+        ingestService = new MedLogIngestService(medLogRepository, authService, collectionVersionService,
+                userWriteLockService, outboxService, new ObjectMapper(), Validation.buildDefaultValidatorFactory().getValidator(),
+                entityManager, jdbcTemplate, properties);
+        lenient().when(jdbcTemplate.update(any(PreparedStatementCreator.class))).thenAnswer(invocation -> {
+            Statement statement = prepare(invocation.getArgument(0));
+            statements.add(statement);
+            // Stands in for the rows of earlier chunks a chunk replaces
+            return statement.is("WITH replaced") && statement.arrays().get(0).contains("log-d") ? 1 : 0;
+        });
+    }
+
+    @Test
+    @DisplayName("should write, flush and clear in fixed-size chunks")
+    @SuppressWarnings("unchecked")
+    void writesInChunks() throws Exception {
+        lenient().when(entityManager.getReference(User.class, "user-123"))
+                .thenReturn(User.builder().id("user-123").build());
+
+        ImportResultDTO result = ingestService.saveMedLogs("user-123", body(logs(5)));
+
+        ArgumentCaptor<List<MedLog>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(medLogRepository, times(3)).saveAll(inserted.capture());
+        assertThat(inserted.getAllValues()).extracting(List::size).containsExactly(2, 2, 1);
+        verify(entityManager, times(3)).clear();
+        verify(userWriteLockService).lock("user-123");
+        verify(collectionVersionService).bump("user-123", CacheConfig.MED_LOGS_CACHE);
+        assertThat(result.getRowsReceived()).isEqualTo(5);
+        assertThat(result.getRowsImported()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("should reject more logs than the configured cap")
+    void enforcesCap() {
+        lenient().when(entityManager.getReference(User.class, "user-123"))
+                .thenReturn(User.builder().id("user-123").build());
+
+        assertThatThrownBy(() -> ingestService.saveMedLogs("user-123", body(logs(6))))
+                .isInstanceOf(PayloadTooLargeException.class);
+        verify(collectionVersionService, never()).bump(any(), any());
+    }
+
+    @Test
+    @DisplayName("should report the position of an invalid log")
+    void validatesEachLog() {
+        String json = "[{\"medId\":\"med-1\",\"date\":\"2026-02-23\",\"time\":\"08:00\"},"
+                + "{\"medId\":\"\",\"date\":\"2026-02-23\",\"time\":\"08:00\"}]";
+
+        assertThatThrownBy(() -> ingestService.saveMedLogs("user-123", body(json)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageStartingWith("Med log 1: medId");
+        verifyNoInteractions(medLogRepository);
+    }
+
+    @Test
+    @DisplayName("should reject bodies that are not a JSON array")
+    void rejectsMalformedBodies() {
+        assertThatThrownBy(() -> ingestService.saveMedLogs("user-123", body("{\"medId\":\"med-1\"}")))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> ingestService.saveMedLogs("user-123", body("[{\"medId\":")))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @DisplayName("should fail the whole save on a version conflict in any chunk")
+    void collectsConflicts() {
+        String json = "[{\"id\":\"log-1\",\"medId\":\"med-1\",\"date\":\"2026-02-23\",\"time\":\"08:00\"},"
+                + "{\"id\":\"log-2\",\"medId\":\"med-1\",\"date\":\"2026-02-23\",\"time\":\"20:00\"},"
+                + "{\"id\":\"gone\",\"medId\":\"med-1\",\"date\":\"2026-02-24\",\"time\":\"08:00\",\"version\":3}]";
+        lenient().when(entityManager.getReference(User.class, "user-123"))
+                .thenReturn(User.builder().id("user-123").build());
+
+        assertThatThrownBy(() -> ingestService.saveMedLogs("user-123", body(json)))
+                .isInstanceOfSatisfying(VersionConflictException.class, e ->
+                        assertThat(e.getConflicts()).extracting("id").containsExactly("gone"));
+        verify(collectionVersionService, never()).bump(any(), any());
+    }
+
+    @Test
+    @DisplayName("should keep the last log per dose within and across chunks")
+    @SuppressWarnings("unchecked")
+    void keepsLastLogPerDose() throws Exception {
+        String json = "[" + log("log-a", "08:00", null) + "," + log("log-b", "08:00", null) + ","
+                + log("log-c", "09:00", null) + "," + log("log-d", "08:00", null) + "]";
+        lenient().when(entityManager.getReference(User.class, "user-123"))
+                .thenReturn(User.builder().id("user-123").build());
+
+        ImportResultDTO result = ingestService.saveMedLogs("user-123", body(json));
+
+        ArgumentCaptor<List<MedLog>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(medLogRepository, times(2)).saveAll(inserted.capture());
+        assertThat(inserted.getAllValues().get(0)).extracting(MedLog::getId).containsExactly("log-b");
+        assertThat(inserted.getAllValues().get(1)).extracting(MedLog::getId).containsExactly("log-c", "log-d");
+        assertThat(statements).filteredOn(s -> s.is("WITH replaced"))
+                .last()
+                .satisfies(s -> assertThat(s.arrays().get(1)).contains("med-1|2026-02-23|08:00"));
+        assertThat(result.getRowsImported()).isEqualTo(2);
+        assertThat(result.getRowsSkipped()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should free the dose a log moves to before rewriting it")
+    @SuppressWarnings("unchecked")
+    void movesOntoTakenDose() throws Exception {
+        MedLog stored = MedLog.builder().id("log-1").medId("med-1").date("2026-02-23").time("08:00").version(2L)
+                .build();
+        when(medLogRepository.findByUserIdAndIdIn("user-123", List.of("log-1"))).thenReturn(List.of(stored));
+        lenient().when(entityManager.getReference(User.class, "user-123"))
+                .thenReturn(User.builder().id("user-123").build());
+
+        ingestService.saveMedLogs("user-123", body("[" + log("log-1", "20:00", 2L) + "]"));
+
+        ArgumentCaptor<List<MedLog>> moved = ArgumentCaptor.forClass(List.class);
+        InOrder inOrder = inOrder(jdbcTemplate, medLogRepository);
+        inOrder.verify(jdbcTemplate, times(2)).update(any(PreparedStatementCreator.class));
+        inOrder.verify(medLogRepository).moveLogs(eq("user-123"), moved.capture());
+        assertThat(statements).filteredOn(s -> s.is("WITH displaced")).singleElement().satisfies(s -> {
+            assertThat(s.arrays().get(0)).containsExactly("log-1");
+            assertThat(s.arrays().get(1)).containsExactly("med-1|2026-02-23|20:00");
+        });
+        assertThat(moved.getValue()).singleElement().satisfies(log -> {
+            assertThat(log.getTime()).isEqualTo("20:00");
+            assertThat(log.getVersion()).isEqualTo(3L);
+        });
+    }
+
+    @Test
+    @DisplayName("should restore a log displaced by an earlier chunk instead of reporting a conflict")
+    @SuppressWarnings("unchecked")
+    void restoresDisplacedLogs() throws Exception {
+        MedLog displaced = MedLog.builder().id("log-9").medId("med-1").date("2026-02-23").time("08:00").version(4L)
+                .build();
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), ArgumentMatchers.<RowMapper<MedLog>>any()))
+                .thenReturn(List.of(), List.of(displaced));
+        lenient().when(entityManager.getReference(User.class, "user-123"))
+                .thenReturn(User.builder().id("user-123").build());
+        String json = "[" + log("new-1", "08:00", null) + "," + log("new-2", "09:00", null) + ","
+                + log("log-9", "10:00", 4L) + "]";
+
+        ImportResultDTO result = ingestService.saveMedLogs("user-123", body(json));
+
+        ArgumentCaptor<List<MedLog>> moved = ArgumentCaptor.forClass(List.class);
+        verify(medLogRepository).moveLogs(eq("user-123"), moved.capture());
+        assertThat(moved.getValue()).singleElement().satisfies(log -> {
+            assertThat(log.getId()).isEqualTo("log-9");
+            assertThat(log.getTime()).isEqualTo("10:00");
+            assertThat(log.getVersion()).isEqualTo(5L);
+        });
+        assertThat(statements).filteredOn(s -> s.is("DELETE FROM ingest_displaced")).singleElement()
+                .satisfies(s -> assertThat(s.arrays().get(0)).containsExactly("log-9"));
+        verify(jdbcTemplate).update(startsWith("UPDATE med_logs m SET id = d.id"), eq("user-123"));
+        assertThat(result.getRowsImported()).isEqualTo(3);
+    }
+
+    private static String logs(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            json.append(i > 0 ? "," : "")
+                    .append("{\"id\":\"log-").append(i).append("\",\"medId\":\"med-1\",\"date\":\"2026-02-23\",")
+                    .append("\"time\":\"0").append(i).append(":00\",\"taken\":true}");
+        }
+        return json.append("]").toString();
+    }
+
+    private static String log(String id, String time, Long version) {
+        return "{\"id\":\"" + id + "\",\"medId\":\"med-1\",\"date\":\"2026-02-23\",\"time\":\"" + time + "\""
+                + (version != null ? ",\"version\":" + version : "") + "}";
+    }
+
+    private static Statement prepare(PreparedStatementCreator creator) throws Exception {
+        Connection connection = mock(Connection.class);
+        List<List<Object>> arrays = new ArrayList<>();
+        when(connection.createArrayOf(anyString(), any())).thenAnswer(invocation -> {
+            arrays.add(List.of((Object[]) invocation.getArgument(1)));
+            return mock(Array.class);
+        });
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        creator.createPreparedStatement(connection);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        return new Statement(sql.getValue(), arrays);
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,117 @@
+package com.mediminder.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediminder.config.DbJsonProperties;
+import com.mediminder.dto.MedLogDTO;
+import com.mediminder.entity.MedLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MedLogJsonServiceTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MedLogJsonService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new MedLogJsonService(dataSource, transactionManager, new DbJsonProperties());
+    }
+
+    @Test
+    @DisplayName("should build the same fields, in the same order, as a serialized MedLogDTO")
+    void sameFieldsAsDto() {
+        // Keys are the quoted words directly after "json_build_object(" or ", "
+        Matcher key = Pattern.compile("(?:json_build_object\\(|, )'(\\w+)'").matcher(MedLogJsonService.MED_LOGS_JSON_SQL);
+        List<String> keys = new ArrayList<>();
+        while (key.find()) {
+            keys.add(key.group(1));
+        }
+        List<String> dtoFields = new ArrayList<>();
+        objectMapper.valueToTree(MedLogDTO.builder().build()).fieldNames().forEachRemaining(dtoFields::add);
+
+        assertThat(keys).isEqualTo(dtoFields);
+    }
+
+    @Test
+    @DisplayName("should stream rendered rows as the array Jackson writes for the DTOs")
+    void sameArrayAsDtos() throws Exception {
+        // Rows as json_build_object(...)::text renders them; like ISO_LOCAL_DATE_TIME, PostgreSQL
+        // writes timestamps with a 'T' and drops trailing zeros of the fraction
+        stubRows("{\"id\" : \"log-1\", \"medId\" : \"med-1\", \"date\" : \"2026-02-23\", \"time\" : \"08:00\", "
+                        + "\"taken\" : true, \"takenAt\" : \"2026-02-23T08:00:05.12\", \"version\" : 2}",
+                "{\"id\" : \"log-2\", \"medId\" : \"med-1\", \"date\" : \"2026-02-23\", \"time\" : \"20:00\", "
+                        + "\"taken\" : false, \"takenAt\" : null, \"version\" : 0}");
+        List<MedLogDTO> dtos = List.of(
+                MedLogService.toDTO(MedLog.builder().id("log-1").medId("med-1").date("2026-02-23").time("08:00")
+                        .taken(true).takenAt(LocalDateTime.of(2026, 2, 23, 8, 0, 5, 120_000_000)).version(2L).build()),
+                MedLogService.toDTO(MedLog.builder().id("log-2").medId("med-1").date("2026-02-23").time("20:00")
+                        .taken(false).version(0L).build()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = service.writeMedLogs("user-123", out);
+
+        assertThat(count).isEqualTo(2);
+        // Re-serialized without the spacing, so field order and value formats must match too
+        assertThat(objectMapper.writeValueAsString(objectMapper.readTree(out.toByteArray())))
+                .isEqualTo(objectMapper.writeValueAsString(dtos));
+        verify(statement).setString(1, "user-123");
+    }
+
+    @Test
+    @DisplayName("should write an empty array for a user without logs")
+    void emptyArray() throws Exception {
+        stubRows();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = service.writeMedLogs("user-123", out);
+
+        assertThat(count).isZero();
+        assertThat(out.toString()).isEqualTo(objectMapper.writeValueAsString(List.of()));
+    }
+
+    private void stubRows(String... rows) throws Exception {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(MedLogJsonService.MED_LOGS_JSON_SQL)).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        lenient().when(resultSet.getString(1)).thenAnswer(invocation -> rows[row[0]]);
+    }
+}
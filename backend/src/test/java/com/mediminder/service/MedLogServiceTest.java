@@ -1,25 +1,37 @@
 package com.mediminder.service;
 
+import com.mediminder.config.CacheConfig;
+import com.mediminder.dto.CompactMedLogList;
 import com.mediminder.dto.MedLogDTO;
+import com.mediminder.dto.VersionConflictDTO;
 import com.mediminder.entity.MedLog;
 import com.mediminder.entity.User;
+import com.mediminder.exception.VersionConflictException;
 import com.mediminder.repository.MedLogRepository;
+import com.mediminder.repository.MedLogRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -34,11 +46,29 @@ class MedLogServiceTest {
     @Mock
     private AuthService authService;
 
+    @Mock
+    private CollectionVersionService collectionVersionService;
+
+    @Mock
+    private UserWriteLockService userWriteLockService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Spy
+    private CacheLoadCoalescer cacheLoadCoalescer =
+            new CacheLoadCoalescer(new SimpleMeterRegistry(), new CollectionVersionService(),
+                    mock(PlatformTransactionManager.class));
+
+    @Spy
+    private CacheManager cacheManager = new CaffeineCacheManager(CacheConfig.MED_LOGS_CACHE);
+
     @InjectMocks
     private MedLogService medLogService;
 
     private User testUser;
     private MedLog testMedLog;
+    private MedLogRow testRow;
     private MedLogDTO testDTO;
     private LocalDateTime takenAtTime;
 
@@ -51,6 +81,8 @@ class MedLogServiceTest {
 
         takenAtTime = LocalDateTime.of(2026, 2, 23, 8, 30, 0);
 
+        testRow = new MedLogRow("log-1", "med-1", "2026-02-23", "08:00", true, takenAtTime, 0L);
+
         testMedLog = MedLog.builder()
                 .id("log-1")
                 .user(testUser)
@@ -78,8 +110,8 @@ class MedLogServiceTest {
         @Test
         @DisplayName("should return list of med logs for user")
         void getMedLogsSuccess() {
-            when(medLogRepository.findByUserId("user-123"))
-                    .thenReturn(List.of(testMedLog));
+            when(medLogRepository.findRowsByUserId("user-123"))
+                    .thenReturn(List.of(testRow));
 
             List<MedLogDTO> result = medLogService.getMedLogs("user-123");
 
@@ -93,16 +125,8 @@ class MedLogServiceTest {
         @Test
         @DisplayName("should handle null takenAt in DTO conversion")
         void getMedLogsNullTakenAt() {
-            MedLog logNoTakenAt = MedLog.builder()
-                    .id("log-2")
-                    .user(testUser)
-                    .medId("med-1")
-                    .date("2026-02-23")
-                    .time("08:00")
-                    .taken(false)
-                    .takenAt(null)
-                    .build();
-            when(medLogRepository.findByUserId("user-123"))
+            MedLogRow logNoTakenAt = new MedLogRow("log-2", "med-1", "2026-02-23", "08:00", false, null, 0L);
+            when(medLogRepository.findRowsByUserId("user-123"))
                     .thenReturn(List.of(logNoTakenAt));
 
             List<MedLogDTO> result = medLogService.getMedLogs("user-123");
@@ -114,7 +138,7 @@ class MedLogServiceTest {
         @Test
         @DisplayName("should return empty list when no logs")
         void getMedLogsEmpty() {
-            when(medLogRepository.findByUserId("user-123"))
+            when(medLogRepository.findRowsByUserId("user-123"))
                     .thenReturn(Collections.emptyList());
 
             List<MedLogDTO> result = medLogService.getMedLogs("user-123");
@@ -126,8 +150,8 @@ class MedLogServiceTest {
         @DisplayName("should return paginated med logs")
         void getMedLogsPaginated() {
             Pageable pageable = PageRequest.of(0, 10);
-            Page<MedLog> page = new PageImpl<>(List.of(testMedLog), pageable, 1);
-            when(medLogRepository.findByUserId("user-123", pageable)).thenReturn(page);
+            Page<MedLogRow> page = new PageImpl<>(List.of(testRow), pageable, 1);
+            when(medLogRepository.findRowsByUserId("user-123", pageable)).thenReturn(page);
 
             Page<MedLogDTO> result = medLogService.getMedLogs("user-123", pageable);
 
@@ -150,8 +174,10 @@ class MedLogServiceTest {
 
             assertThat(result).hasSize(1);
             assertThat(result.get(0).getMedId()).isEqualTo("med-1");
-            verify(medLogRepository).deleteByUserIdAndIdNotIn(eq("user-123"), anyList());
-            verify(medLogRepository).saveAll(anyList());
+            InOrder inOrder = inOrder(userWriteLockService, medLogRepository);
+            inOrder.verify(userWriteLockService).lock("user-123");
+            inOrder.verify(medLogRepository).deleteByUserIdExcept(eq("user-123"), anyList());
+            inOrder.verify(medLogRepository).saveAll(anyList());
         }
 
         @Test
@@ -176,7 +202,7 @@ class MedLogServiceTest {
             medLogService.saveMedLogs("user-123", List.of(newDTO));
 
             verify(medLogRepository).deleteByUserId("user-123");
-            verify(medLogRepository, never()).deleteByUserIdAndIdNotIn(anyString(), anyList());
+            verify(medLogRepository, never()).deleteByUserIdExcept(anyString(), anyList());
         }
 
         @Test
@@ -239,6 +265,181 @@ class MedLogServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("saveMedLogs - versions")
+    class SaveMedLogsVersionTests {
+
+        @BeforeEach
+        void setUpExisting() {
+            testMedLog.setVersion(3L);
+            when(authService.getUserById("user-123")).thenReturn(testUser);
+            when(medLogRepository.findByUserId("user-123")).thenReturn(List.of(testMedLog));
+        }
+
+        @Test
+        @DisplayName("should update the managed entity in place when versions match")
+        void updatesMatchingVersion() {
+            testDTO.setVersion(3L);
+            testDTO.setTaken(false);
+
+            List<MedLogDTO> result = medLogService.saveMedLogs("user-123", List.of(testDTO));
+
+            assertThat(testMedLog.getTaken()).isFalse();
+            assertThat(result.get(0).getVersion()).isEqualTo(3L);
+            verify(medLogRepository).saveAll(argThat(logs -> !logs.iterator().hasNext()));
+            verify(medLogRepository).flush();
+        }
+
+        @Test
+        @DisplayName("should reject the whole save and report stale items")
+        void rejectsStaleVersion() {
+            testDTO.setVersion(2L);
+            MedLogDTO newDTO = MedLogDTO.builder().medId("med-2").date("2026-02-24").time("09:00").build();
+
+            assertThatThrownBy(() -> medLogService.saveMedLogs("user-123", List.of(testDTO, newDTO)))
+                    .isInstanceOfSatisfying(VersionConflictException.class, e -> {
+                        assertThat(e.getConflicts()).hasSize(1);
+                        VersionConflictDTO conflict = e.getConflicts().get(0);
+                        assertThat(conflict.getId()).isEqualTo("log-1");
+                        assertThat(conflict.getClientVersion()).isEqualTo(2L);
+                        assertThat(conflict.getServerVersion()).isEqualTo(3L);
+                        assertThat(((MedLogDTO) conflict.getCurrent()).getTaken()).isTrue();
+                    });
+
+            verify(medLogRepository, never()).deleteByUserIdExcept(anyString(), anyList());
+            verify(medLogRepository, never()).saveAll(anyList());
+            verify(collectionVersionService, never()).bump(anyString(), anyString());
+            verifyNoInteractions(outboxService);
+        }
+
+        @Test
+        @DisplayName("should report items deleted on the server as conflicts")
+        void rejectsDeletedItem() {
+            MedLogDTO deleted = MedLogDTO.builder()
+                    .id("log-gone").medId("med-1").date("2026-02-20").time("08:00").version(1L).build();
+
+            assertThatThrownBy(() -> medLogService.saveMedLogs("user-123", List.of(deleted)))
+                    .isInstanceOfSatisfying(VersionConflictException.class, e ->
+                            assertThat(e.getConflicts().get(0).getCurrent()).isNull());
+        }
+
+        @Test
+        @DisplayName("should overwrite without a check when no version is sent")
+        void lastWriterWinsWithoutVersion() {
+            testDTO.setTaken(false);
+
+            medLogService.saveMedLogs("user-123", List.of(testDTO));
+
+            assertThat(testMedLog.getTaken()).isFalse();
+        }
+
+        @Test
+        @DisplayName("should keep the stored ID when another device logged the same dose")
+        void adoptsIdOfSameDose() {
+            MedLogDTO offline = MedLogDTO.builder()
+                    .id("client-9").medId("med-1").date("2026-02-23").time("08:00").taken(false).build();
+
+            List<MedLogDTO> result = medLogService.saveMedLogs("user-123", List.of(offline));
+
+            assertThat(result.get(0).getId()).isEqualTo("log-1");
+            assertThat(testMedLog.getTaken()).isFalse();
+            verify(medLogRepository).deleteByUserIdExcept(eq("user-123"),
+                    argThat(ids -> ids.containsAll(List.of("client-9", "log-1"))));
+            verify(medLogRepository).saveAll(argThat(logs -> !logs.iterator().hasNext()));
+        }
+
+        @Test
+        @DisplayName("should keep only the last item per dose")
+        void dedupesSameDose() {
+            MedLogDTO first = MedLogDTO.builder().medId("med-2").date("2026-02-24").time("09:00").taken(false).build();
+            MedLogDTO second = MedLogDTO.builder().medId("med-2").date("2026-02-24").time("09:00").taken(true).build();
+
+            List<MedLogDTO> result = medLogService.saveMedLogs("user-123", List.of(first, second));
+
+            assertThat(result).hasSize(1);
+            assertThat(result.get(0).getTaken()).isTrue();
+            verify(medLogRepository).saveAll(argThat(logs -> logs.spliterator().getExactSizeIfKnown() == 1));
+        }
+
+        @Test
+        @DisplayName("should move a log out of its dose before a new log takes it")
+        void movesBeforeInsert() {
+            testDTO.setTime("09:00");
+            MedLogDTO replacement = MedLogDTO.builder().medId("med-1").date("2026-02-23").time("08:00").build();
+
+            List<MedLogDTO> result = medLogService.saveMedLogs("user-123", List.of(testDTO, replacement));
+
+            assertThat(result.get(0).getId()).isEqualTo("log-1");
+            assertThat(result.get(0).getTime()).isEqualTo("09:00");
+            assertThat(result.get(0).getVersion()).isEqualTo(4L);
+            assertThat(testMedLog.getTime()).isEqualTo("08:00");
+            InOrder inOrder = inOrder(medLogRepository);
+            inOrder.verify(medLogRepository).moveLogs(eq("user-123"),
+                    argThat(logs -> logs.size() == 1 && logs.get(0).getTime().equals("09:00")));
+            inOrder.verify(medLogRepository).saveAll(argThat(logs -> logs.spliterator().getExactSizeIfKnown() == 1));
+            inOrder.verify(medLogRepository).flush();
+        }
+    }
+
+    @Nested
+    @DisplayName("saveDose")
+    class SaveDoseTests {
+
+        @Test
+        @DisplayName("should upsert the single dose under the write lock without loading the list")
+        void upsertsDose() {
+            when(medLogRepository.upsertDose("user-123", "log-1", "med-1", "2026-02-23", "08:00", true, takenAtTime))
+                    .thenReturn(new MedLogRow("log-1", "med-1", "2026-02-23", "08:00", true, takenAtTime, 4L));
+
+            MedLogDTO saved = medLogService.saveDose("user-123", testDTO);
+
+            assertThat(saved.getVersion()).isEqualTo(4L);
+            assertThat(saved.getTakenAt()).isEqualTo("2026-02-23T08:30:00");
+            verify(outboxService).record("user-123", OutboxService.MED_LOGS, OutboxService.UPSERTED, Map.of(
+                    "id", "log-1", "medId", "med-1", "date", "2026-02-23", "time", "08:00", "taken", true));
+            verify(collectionVersionService).bump("user-123", CacheConfig.MED_LOGS_CACHE);
+            verify(medLogRepository, never()).findByUserId(any());
+            InOrder inOrder = inOrder(userWriteLockService, medLogRepository);
+            inOrder.verify(userWriteLockService).lock("user-123");
+            inOrder.verify(medLogRepository).upsertDose(any(), any(), any(), any(), any(), anyBoolean(), any());
+        }
+
+        @Test
+        @DisplayName("should use a new ID when the client's ID belongs to another dose")
+        void replacesTakenId() {
+            when(medLogRepository.existsById("log-1")).thenReturn(true);
+            when(medLogRepository.upsertDose(eq("user-123"), argThat(id -> !id.equals("log-1")), eq("med-1"),
+                    eq("2026-02-23"), eq("08:00"), eq(true), eq(takenAtTime)))
+                    .thenReturn(new MedLogRow("log-9", "med-1", "2026-02-23", "08:00", true, takenAtTime, 0L));
+
+            MedLogDTO saved = medLogService.saveDose("user-123", testDTO);
+
+            assertThat(saved.getId()).isEqualTo("log-9");
+        }
+
+        @Test
+        @DisplayName("should patch the cached list in place of evicting it")
+        void patchesCache() {
+            MedLogDTO other = MedLogDTO.builder()
+                    .id("log-2").medId("med-2").date("2026-02-23").time("20:00").taken(false).version(0L).build();
+            testDTO.setVersion(0L);
+            cacheManager.getCache(CacheConfig.MED_LOGS_CACHE)
+                    .put("user-123", CompactMedLogList.of(List.of(other, testDTO)));
+            when(medLogRepository.upsertDose(eq("user-123"), anyString(), eq("med-1"), eq("2026-02-23"),
+                    eq("08:00"), eq(false), isNull()))
+                    .thenReturn(new MedLogRow("log-1", "med-1", "2026-02-23", "08:00", false, null, 1L));
+
+            MedLogDTO dose = MedLogDTO.builder()
+                    .id("client-id").medId("med-1").date("2026-02-23").time("08:00").taken(false).build();
+            MedLogDTO saved = medLogService.saveDose("user-123", dose);
+
+            @SuppressWarnings("unchecked")
+            List<MedLogDTO> cached = cacheManager.getCache(CacheConfig.MED_LOGS_CACHE).get("user-123", List.class);
+            assertThat(cached).containsExactly(other, saved);
+            assertThat(saved.getId()).isEqualTo("log-1");
+        }
+    }
+
     @Nested
     @DisplayName("deleteAllMedLogs")
     class DeleteMedLogsTests {
@@ -249,6 +450,8 @@ class MedLogServiceTest {
             medLogService.deleteAllMedLogs("user-123");
 
             verify(medLogRepository).deleteByUserId("user-123");
+            verify(userWriteLockService).lock("user-123");
+            verify(collectionVersionService).bump("user-123", CacheConfig.MED_LOGS_CACHE);
         }
     }
 }
@@ -1,9 +1,12 @@
 package com.mediminder.service;
 
+import com.mediminder.config.CacheConfig;
 import com.mediminder.dto.MedicationDTO;
 import com.mediminder.entity.Medication;
 import com.mediminder.entity.User;
 import com.mediminder.repository.MedicationRepository;
+import com.mediminder.repository.MedicationRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,15 +14,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -34,11 +40,26 @@ class MedicationServiceTest {
     @Mock
     private AuthService authService;
 
+    @Mock
+    private CollectionVersionService collectionVersionService;
+
+    @Mock
+    private UserWriteLockService userWriteLockService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Spy
+    private CacheLoadCoalescer cacheLoadCoalescer =
+            new CacheLoadCoalescer(new SimpleMeterRegistry(), new CollectionVersionService(),
+                    mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private MedicationService medicationService;
 
     private User testUser;
     private Medication testMedication;
+    private MedicationRow testRow;
     private MedicationDTO testDTO;
 
     @BeforeEach
@@ -48,6 +69,9 @@ class MedicationServiceTest {
                 .email("test@example.com")
                 .build();
 
+        testRow = new MedicationRow("med-1", "Aspirin", "100mg", "daily", List.of("08:00", "20:00"),
+                "Take with food", 0L);
+
         testMedication = Medication.builder()
                 .id("med-1")
                 .user(testUser)
@@ -75,8 +99,8 @@ class MedicationServiceTest {
         @Test
         @DisplayName("should return list of medications for user")
         void getMedicationsSuccess() {
-            when(medicationRepository.findByUserId("user-123"))
-                    .thenReturn(List.of(testMedication));
+            when(medicationRepository.findRowsByUserId("user-123"))
+                    .thenReturn(List.of(testRow));
 
             List<MedicationDTO> result = medicationService.getMedications("user-123");
 
@@ -89,7 +113,7 @@ class MedicationServiceTest {
         @Test
         @DisplayName("should return empty list when no medications")
         void getMedicationsEmpty() {
-            when(medicationRepository.findByUserId("user-123"))
+            when(medicationRepository.findRowsByUserId("user-123"))
                     .thenReturn(Collections.emptyList());
 
             List<MedicationDTO> result = medicationService.getMedications("user-123");
@@ -101,8 +125,8 @@ class MedicationServiceTest {
         @DisplayName("should return paginated medications")
         void getMedicationsPaginated() {
             Pageable pageable = PageRequest.of(0, 10);
-            Page<Medication> page = new PageImpl<>(List.of(testMedication), pageable, 1);
-            when(medicationRepository.findByUserId("user-123", pageable)).thenReturn(page);
+            Page<MedicationRow> page = new PageImpl<>(List.of(testRow), pageable, 1);
+            when(medicationRepository.findRowsByUserId("user-123", pageable)).thenReturn(page);
 
             Page<MedicationDTO> result = medicationService.getMedications("user-123", pageable);
 
@@ -125,7 +149,7 @@ class MedicationServiceTest {
 
             assertThat(result).hasSize(1);
             assertThat(result.get(0).getName()).isEqualTo("Aspirin");
-            verify(medicationRepository).deleteByUserIdAndIdNotIn(eq("user-123"), anyList());
+            verify(medicationRepository).deleteByUserIdExcept(eq("user-123"), anyList());
             verify(medicationRepository).saveAll(anyList());
         }
 
@@ -151,7 +175,7 @@ class MedicationServiceTest {
 
             assertThat(result).hasSize(1);
             verify(medicationRepository).deleteByUserId("user-123");
-            verify(medicationRepository, never()).deleteByUserIdAndIdNotIn(anyString(), anyList());
+            verify(medicationRepository, never()).deleteByUserIdExcept(anyString(), anyList());
         }
 
         @Test
@@ -188,6 +212,9 @@ class MedicationServiceTest {
             medicationService.deleteAllMedications("user-123");
 
             verify(medicationRepository).deleteByUserId("user-123");
+            verify(userWriteLockService).lock("user-123");
+            verify(outboxService).record("user-123", OutboxService.MEDICATIONS, OutboxService.CLEARED, Map.of());
+            verify(collectionVersionService).bump("user-123", CacheConfig.MEDICATIONS_CACHE);
         }
     }
 }
@@ -0,0 +1,213 @@
+package com.mediminder.service;
+
+import com.mediminder.config.OutboxProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private LeaderElectionService leaderElectionService;
+
+    @Mock
+    private ObjectProvider<OutboxSink> sinkProvider;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private List<List<OutboxEvent>> received;
+
+    @BeforeEach
+    void setUp() {
+        received = new ArrayList<>();
+    }
+
+    @Test
+    @DisplayName("should hand a batch to every sink and mark it published")
+    void relaysBatch() throws Exception {
+        stubPendingEvent();
+        OutboxRelay relay = relay(recordingSink(), recordingSink());
+
+        int relayed = relay.relayBatch();
+
+        assertThat(relayed).isEqualTo(1);
+        assertThat(received).hasSize(2).allSatisfy(batch -> assertThat(batch)
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.id()).isEqualTo(42L);
+                    assertThat(event.collection()).isEqualTo(OutboxService.MED_LOGS);
+                    assertThat(event.payload()).isEqualTo("{\"count\":3}");
+                }));
+        verify(jdbcTemplate).update(any(PreparedStatementCreator.class));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("should leave the batch unpublished when a sink fails")
+    void keepsBatchOnSinkFailure() throws Exception {
+        stubPendingEvent();
+        OutboxSink failing = new OutboxSink() {
+            @Override
+            public String name() {
+                return "broken";
+            }
+
+            @Override
+            public void publish(List<OutboxEvent> events) {
+                throw new IllegalStateException("broker down");
+            }
+        };
+        OutboxRelay relay = relay(failing, recordingSink());
+
+        int relayed = relay.relayBatch();
+
+        assertThat(relayed).isZero();
+        assertThat(received).isEmpty();
+        verify(jdbcTemplate, never()).update(any(PreparedStatementCreator.class));
+        verify(transactionManager).rollback(any());
+        // The failed attempt is charged in a transaction of its own
+        verify(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("should retry an event that failed before on its own")
+    void isolatesFailedEvents() throws Exception {
+        stubPendingEvents(2, 0);
+        OutboxRelay relay = relay(recordingSink());
+
+        int relayed = relay.relayBatch();
+
+        assertThat(relayed).isEqualTo(1);
+        assertThat(received).singleElement().satisfies(batch -> assertThat(batch).hasSize(1));
+    }
+
+    @Test
+    @DisplayName("should count events dead-lettered after too many attempts")
+    @SuppressWarnings("unchecked")
+    void deadLettersFailingEvents() throws Exception {
+        stubPendingEvent();
+        ResultSet failed = mock(ResultSet.class);
+        when(failed.getBoolean("dead")).thenReturn(true);
+        when(failed.getLong("id")).thenReturn(42L);
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenAnswer(invocation ->
+                List.of(invocation.getArgument(1, RowMapper.class).mapRow(failed, 0)));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OutboxRelay relay = relay(meterRegistry, new OutboxSink() {
+            @Override
+            public String name() {
+                return "broken";
+            }
+
+            @Override
+            public void publish(List<OutboxEvent> events) {
+                throw new IllegalStateException("rejected");
+            }
+        });
+
+        relay.relayBatch();
+
+        assertThat(meterRegistry.get("mediminder.outbox.dead.lettered").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should purge published events by the database clock")
+    void purgesByDatabaseClock() {
+        when(leaderElectionService.isLeader()).thenReturn(true);
+
+        relay(recordingSink()).purgePublished();
+
+        verify(jdbcTemplate).update(contains("published_at < CURRENT_TIMESTAMP - CAST(? AS DOUBLE PRECISION)"),
+                eq(new OutboxProperties().getRetention().toMillis()));
+    }
+
+    @Test
+    @DisplayName("should only relay on the leader")
+    void followerDoesNothing() {
+        when(leaderElectionService.isLeader()).thenReturn(false);
+
+        relay(recordingSink()).relay();
+
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    private void stubPendingEvent() throws Exception {
+        stubPendingEvents(0);
+    }
+
+    /**
+     * Stubs one pending event per given attempt count, with IDs from 42 up
+     */
+    @SuppressWarnings("unchecked")
+    private void stubPendingEvents(int... attempts) throws Exception {
+        when(resultSet.getLong("id")).thenReturn(42L, 43L);
+        when(resultSet.getInt("attempts")).thenReturn(attempts[0], Arrays.stream(attempts).skip(1).boxed()
+                .toArray(Integer[]::new));
+        when(resultSet.getString("user_id")).thenReturn("user-123");
+        when(resultSet.getString("collection")).thenReturn(OutboxService.MED_LOGS);
+        when(resultSet.getString("type")).thenReturn(OutboxService.REPLACED);
+        when(resultSet.getString("payload")).thenReturn("{\"count\":3}");
+        when(resultSet.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(LocalDateTime.of(2026, 2, 23, 8, 0)));
+        when(resultSet.getLong("age_ms")).thenReturn(15L);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any())).thenAnswer(invocation -> {
+            List<Object> rows = new ArrayList<>();
+            for (int i = 0; i < attempts.length; i++) {
+                rows.add(invocation.getArgument(1, RowMapper.class).mapRow(resultSet, i));
+            }
+            return rows;
+        });
+    }
+
+    private OutboxRelay relay(OutboxSink... sinks) {
+        return relay(new SimpleMeterRegistry(), sinks);
+    }
+
+    private OutboxRelay relay(SimpleMeterRegistry meterRegistry, OutboxSink... sinks) {
+        lenient().when(sinkProvider.orderedStream()).thenAnswer(invocation -> Stream.of(sinks));
+        return new OutboxRelay(jdbcTemplate, transactionManager, sinkProvider, new OutboxProperties(),
+                leaderElectionService, meterRegistry);
+    }
+
+    private OutboxSink recordingSink() {
+        return new OutboxSink() {
+            @Override
+            public String name() {
+                return "recording";
+            }
+
+            @Override
+            public void publish(List<OutboxEvent> events) {
+                received.add(events);
+            }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.mediminder.service;
+
+import com.mediminder.dto.AppointmentDTO;
+import com.mediminder.dto.BootstrapDTO;
+import com.mediminder.dto.MedLogDTO;
+import com.mediminder.dto.MedicationDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SyncServiceTest {
+
+    @Mock
+    private MedicationService medicationService;
+
+    @Mock
+    private MedLogService medLogService;
+
+    @Mock
+    private AppointmentService appointmentService;
+
+    @InjectMocks
+    private SyncService syncService;
+
+    @Test
+    @DisplayName("should return all three collections through their cached services")
+    void bootstrapLoadsAllCollections() {
+        MedicationDTO medication = MedicationDTO.builder().id("med-1").name("Aspirin").build();
+        MedLogDTO medLog = MedLogDTO.builder().id("log-1").medId("med-1").build();
+        AppointmentDTO appointment = AppointmentDTO.builder().id("apt-1").doctorName("Dr. Smith").build();
+        when(medicationService.getMedications("user-123")).thenReturn(List.of(medication));
+        when(medLogService.getMedLogs("user-123")).thenReturn(List.of(medLog));
+        when(appointmentService.getAppointments("user-123")).thenReturn(List.of(appointment));
+
+        BootstrapDTO result = syncService.bootstrap("user-123");
+
+        assertThat(result.getMedications()).containsExactly(medication);
+        assertThat(result.getMedLogs()).containsExactly(medLog);
+        assertThat(result.getAppointments()).containsExactly(appointment);
+    }
+}
@@ -0,0 +1,158 @@
+package com.mediminder.service;
+
+import com.mediminder.config.WriteLockProperties;
+import com.mediminder.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserWriteLockServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private WriteLockProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private UserWriteLockService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WriteLockProperties();
+        properties.setTimeoutMs(100);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new UserWriteLockService(jdbcTemplate, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("should take the advisory lock in the caller's transaction")
+    void takesAdvisoryLock() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.lock("user-123");
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute(startsWith("SET LOCAL lock_timeout = "));
+        inOrder.verify(jdbcTemplate).query(eq("SELECT pg_advisory_xact_lock(?, hashtext(?))"),
+                any(RowCallbackHandler.class), eq(UserWriteLockService.ADVISORY_NAMESPACE), eq("user-123"));
+        inOrder.verify(jdbcTemplate).execute("SET LOCAL lock_timeout TO DEFAULT");
+        completeTransaction();
+        assertThat(meterRegistry.get("mediminder.write.lock.wait").tag("lock", "advisory").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should fail with 503 when the advisory lock wait hits lock_timeout")
+    void advisoryTimeout() {
+        TransactionSynchronizationManager.initSynchronization();
+        doThrow(new CannotAcquireLockException("canceling statement due to lock timeout"))
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        assertThatThrownBy(() -> service.lock("user-123"))
+                .isInstanceOf(ServiceUnavailableException.class);
+        verify(jdbcTemplate).execute(startsWith("SET LOCAL lock_timeout = "));
+        assertThat(meterRegistry.get("mediminder.write.lock.timeout").counter().count()).isEqualTo(1);
+        completeTransaction();
+    }
+
+    @Test
+    @DisplayName("should skip the advisory lock when disabled")
+    void advisoryDisabled() {
+        properties.setAdvisory(false);
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.lock("user-123");
+
+        verifyNoInteractions(jdbcTemplate);
+        completeTransaction();
+    }
+
+    @Test
+    @DisplayName("should refuse to lock outside a transaction")
+    void requiresTransaction() {
+        assertThatThrownBy(() -> service.lock("user-123"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("should block a second writer for the same user until the first completes")
+    void serializesSameUser() throws Exception {
+        properties.setAdvisory(false);
+        TransactionSynchronizationManager.initSynchronization();
+        service.lock("user-123");
+
+        assertThat(lockInOtherTransaction("user-123"))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(meterRegistry.get("mediminder.write.lock.timeout").counter().count()).isEqualTo(1);
+
+        completeTransaction();
+        assertThat(lockInOtherTransaction("user-123")).isNull();
+    }
+
+    @Test
+    @DisplayName("should not block writers for other users")
+    void otherUsersProceed() throws Exception {
+        properties.setAdvisory(false);
+        TransactionSynchronizationManager.initSynchronization();
+        // "Aa" and "BB" have the same hashCode, so no striping scheme could separate them
+        service.lock("Aa");
+
+        assertThat(lockInOtherTransaction("BB")).isNull();
+        completeTransaction();
+    }
+
+    private void completeTransaction() {
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    /**
+     * Runs lock() in a separate thread/transaction and returns what it threw, or null on success.
+     */
+    private Throwable lockInOtherTransaction(String userId) throws Exception {
+        CompletableFuture<Void> attempt = CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                service.lock(userId);
+                completeTransaction();
+            } finally {
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    TransactionSynchronizationManager.clearSynchronization();
+                }
+            }
+        });
+        try {
+            attempt.get(5, TimeUnit.SECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+}
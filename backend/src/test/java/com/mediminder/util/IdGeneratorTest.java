@@ -0,0 +1,65 @@
+package com.mediminder.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IdGeneratorTest {
+
+    @Test
+    @DisplayName("should produce RFC 9562 version 7 UUIDs carrying the current time")
+    void versionAndTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = UUID.fromString(IdGenerator.generateId());
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        // The counter may carry the timestamp slightly ahead under heavy load
+        assertThat(id.getMostSignificantBits() >>> 16).isBetween(before, System.currentTimeMillis() + 1000);
+    }
+
+    @Test
+    @DisplayName("should increase strictly, also as strings, within the same millisecond")
+    void monotonic() {
+        String previous = IdGenerator.generateId();
+        for (int i = 0; i < 100_000; i++) {
+            String next = IdGenerator.generateId();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("should not hand out duplicates across threads")
+    void uniqueAcrossThreads() throws Exception {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        ids.add(IdGenerator.generateId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(ids).hasSize(160_000);
+    }
+}